@@ -0,0 +1,72 @@
+package benchmarks;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.InvalidMoveException;
+import chess.engine.BatchAnalyzer;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+// a batch of positions from random games through BatchAnalyzer as pool threads are added, with the static
+// evaluation only (depth 0) and with a short search per position
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BatchBenchmark {
+
+    @Param({"1", "2", "4", "8"})
+    public int threads;
+
+    @Param({"0", "1"})
+    public int depth;
+
+    private ForkJoinPool pool;
+    private BatchAnalyzer analyzer;
+    private List<String> fens;
+    private List<byte[]> packed;
+
+    @Setup
+    public void setUp() throws InvalidMoveException {
+        pool = new ForkJoinPool(threads);
+        analyzer = new BatchAnalyzer(pool, depth);
+        fens = new ArrayList<>();
+        packed = new ArrayList<>();
+        Random random = new Random(1);
+        while (fens.size() < 4096) {
+            ChessGame game = new ChessGame();
+            for (int ply = random.nextInt(80); ply > 0; ply--) {
+                List<ChessMove> moves = new ArrayList<>(game.allValidMoves(game.getTeamTurn()));
+                if (moves.isEmpty()) {
+                    break;
+                }
+                game.makeMove(moves.get(random.nextInt(moves.size())));
+            }
+            fens.add(game.toFen());
+            packed.add(game.toBytes());
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public void fen(Blackhole blackhole) {
+        analyzer.analyzeFen(fens).forEach(blackhole::consume);
+    }
+
+    @Benchmark
+    public void packed(Blackhole blackhole) {
+        analyzer.analyzePacked(packed).forEach(blackhole::consume);
+    }
+}
@@ -0,0 +1,72 @@
+package benchmarks;
+
+import chess.ChessGame;
+import dataaccess.DataAccessException;
+import dataaccess.MemoryDataAccess;
+import model.AuthData;
+import model.GameData;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// MemoryDataAccess shared by many threads, the way the server's request threads hit it
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DataAccessBenchmark {
+
+    private static final int GAMES = 1024;
+    private static final int TOKENS = 1024;
+
+    private MemoryDataAccess data;
+
+    @Setup
+    public void setUp() throws DataAccessException {
+        data = new MemoryDataAccess();
+        for (int i = 0; i < GAMES; i++) {
+            data.insertGame(new GameData(0, "white" + i, "black" + i, "game" + i, new ChessGame()));
+        }
+        for (int i = 0; i < TOKENS; i++) {
+            data.insertAuth(new AuthData("token" + i, "user" + i));
+        }
+    }
+
+    @Benchmark
+    @Threads(4)
+    public AuthData getAuth() throws DataAccessException {
+        return data.getAuth("token" + ThreadLocalRandom.current().nextInt(TOKENS));
+    }
+
+    @Benchmark
+    @Threads(4)
+    public GameData getGame() throws DataAccessException {
+        return data.getGame(1 + ThreadLocalRandom.current().nextInt(GAMES));
+    }
+
+    // readers and writers on the same games at once, like a busy game with observers
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(3)
+    public GameData contendedRead() throws DataAccessException {
+        return data.getGame(1 + ThreadLocalRandom.current().nextInt(16));
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(1)
+    public void contendedUpdate() throws DataAccessException {
+        int id = 1 + ThreadLocalRandom.current().nextInt(16);
+        GameData game = data.getGame(id);
+        data.updateGame(new GameData(id, game.whiteUsername(), game.blackUsername(), game.gameName(), game.game()));
+    }
+
+    @Benchmark
+    @Threads(4)
+    public int listGames() throws DataAccessException {
+        return data.listGames().size();
+    }
+}
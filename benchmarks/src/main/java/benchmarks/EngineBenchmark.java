@@ -0,0 +1,81 @@
+package benchmarks;
+
+import chess.*;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+// the rules calls the server makes for every MAKE_MOVE, across opening, middlegame and endgame positions
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EngineBenchmark {
+
+    @Param({"opening", "middlegame", "endgame"})
+    public String phase;
+
+    private ChessGame game;
+    private ChessMove firstMove;
+
+    @Setup
+    public void setUp() {
+        game = Positions.load(phase);
+        for (int row = 1; row <= 8 && firstMove == null; row++) {
+            for (int col = 1; col <= 8 && firstMove == null; col++) {
+                ChessPosition position = new ChessPosition(row, col);
+                ChessPiece piece = game.getBoard().getPiece(position);
+                if (piece != null && piece.getTeamColor() == game.getTeamTurn()) {
+                    var moves = game.validMoves(position);
+                    if (!moves.isEmpty()) {
+                        firstMove = moves.iterator().next();
+                    }
+                }
+            }
+        }
+    }
+
+    // every legal move of the side to move, the way a client highlights the whole board
+    @Benchmark
+    public void validMovesAllPieces(Blackhole blackhole) {
+        for (int row = 1; row <= 8; row++) {
+            for (int col = 1; col <= 8; col++) {
+                ChessPosition position = new ChessPosition(row, col);
+                ChessPiece piece = game.getBoard().getPiece(position);
+                if (piece != null && piece.getTeamColor() == game.getTeamTurn()) {
+                    blackhole.consume(game.validMoves(position));
+                }
+            }
+        }
+    }
+
+    // the cost of the copy alone, subtract it from makeMove
+    @Benchmark
+    public ChessGame copyBaseline() {
+        return Positions.copy(game);
+    }
+
+    @Benchmark
+    public ChessGame makeMove() throws InvalidMoveException {
+        ChessGame copy = Positions.copy(game);
+        copy.makeMove(firstMove);
+        return copy;
+    }
+
+    // the game caches its outcome by position, so each call gets a fresh copy to measure the detection
+    // itself. subtract copyBaseline as for makeMove
+    @Benchmark
+    public boolean isInCheckmate() {
+        ChessGame copy = Positions.copy(game);
+        return copy.isInCheckmate(copy.getTeamTurn());
+    }
+
+    @Benchmark
+    public boolean isInStalemate() {
+        ChessGame copy = Positions.copy(game);
+        return copy.isInStalemate(copy.getTeamTurn());
+    }
+}
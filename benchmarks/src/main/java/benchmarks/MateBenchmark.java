@@ -0,0 +1,62 @@
+package benchmarks;
+
+import chess.ChessGame;
+import chess.Fen;
+import chess.engine.Engine;
+import chess.engine.MateSolver;
+import chess.engine.SearchLimits;
+import chess.engine.SearchResult;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// the proof-number mate solver on classic mate problems, next to the alpha-beta search finding the same mate.
+// each call starts from empty tables so nothing is remembered from the call before
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MateBenchmark {
+
+    // name to position and the moves the mate takes
+    private static final Map<String, Object[]> PROBLEMS = Map.of(
+            "morphy2", new Object[]{"kbK5/pp6/1P6/8/8/8/8/R7 w - - 0 1", 2},
+            "legal2", new Object[]{"r2qkb1r/pp2nppp/3p4/2pNN1B1/2BnP3/3P4/PPP2PPP/R2bK2R w - - 1 1", 2},
+            "rooks3", new Object[]{"r5rk/5p1p/5R2/4B3/8/8/7P/7K w - - 0 1", 3},
+            "queen3", new Object[]{"2r3k1/p4p2/3Rp2p/1p2P1pK/8/1P4P1/P3Q2P/1q6 b - - 0 1", 3},
+            "kingHunt3", new Object[]{"r1b1kb1r/pppp1ppp/5q2/4n3/3KP3/2N3PN/PPP4P/R1BQ1B1R b - - 0 1", 3});
+
+    @Param({"morphy2", "legal2", "rooks3", "queen3", "kingHunt3"})
+    public String problem;
+
+    private final MateSolver solver = new MateSolver(16);
+    private final Engine engine = new Engine(16);
+    private ChessGame game;
+    private int moves;
+
+    @Setup
+    public void setUp() {
+        game = Fen.read((String) PROBLEMS.get(problem)[0]);
+        moves = (Integer) PROBLEMS.get(problem)[1];
+    }
+
+    // a solve takes milliseconds, long enough for a per-call setup not to skew it
+    @Setup(Level.Invocation)
+    public void clearTables() {
+        solver.clear();
+        engine.clear();
+    }
+
+    @Benchmark
+    public MateSolver.Result proofNumber() {
+        return solver.solve(game, moves);
+    }
+
+    @Benchmark
+    public SearchResult alphaBeta() {
+        return engine.search(game, SearchLimits.depth(2 * moves - 1));
+    }
+}
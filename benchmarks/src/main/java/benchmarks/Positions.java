@@ -0,0 +1,32 @@
+package benchmarks;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.Fen;
+
+// positions shared by the benchmarks, picked to cover the three phases of a typical game
+final class Positions {
+
+    static final String OPENING = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w - - 0 1";
+    static final String MIDDLEGAME = "r2q1rk1/pp1bbppp/2n1pn2/3p4/3P4/2NBPN2/PP3PPP/R2Q1RK1 w - - 0 10";
+    static final String ENDGAME = "8/5pk1/6p1/8/3R4/6P1/5PK1/3r4 w - - 0 40";
+
+    private Positions() { }
+
+    static ChessGame load(String phase) {
+        return Fen.read(switch (phase) {
+            case "opening" -> OPENING;
+            case "middlegame" -> MIDDLEGAME;
+            case "endgame" -> ENDGAME;
+            default -> throw new IllegalArgumentException("Unknown phase: " + phase);
+        });
+    }
+
+    // independent copy, since makeMove changes the game it is called on
+    static ChessGame copy(ChessGame game) {
+        ChessGame copy = new ChessGame();
+        copy.setBoard(new ChessBoard(game.getBoard()));
+        copy.setTeamTurn(game.getTeamTurn());
+        return copy;
+    }
+}
@@ -0,0 +1,55 @@
+package benchmarks;
+
+import chess.ChessGame;
+import chess.engine.Engine;
+import chess.engine.SearchLimits;
+import chess.engine.SearchResult;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// nodes per second of a fixed-time search as helper threads are added; the nodes column is the one to
+// compare, the searches column only counts calls
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SearchBenchmark {
+
+    @Param({"opening", "middlegame", "endgame"})
+    public String phase;
+
+    @Param({"1", "2", "4", "8"})
+    public int threads;
+
+    private ChessGame game;
+    private Engine engine;
+    private SearchLimits limits;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Counters {
+        public long nodes;
+    }
+
+    @Setup
+    public void setUp() {
+        game = Positions.load(phase);
+        engine = new Engine(64);
+        limits = SearchLimits.millis(200).withThreads(threads);
+    }
+
+    @TearDown
+    public void tearDown() {
+        engine.close();
+    }
+
+    @Benchmark
+    public SearchResult searches(Counters counters) {
+        SearchResult result = engine.search(game, limits);
+        counters.nodes += result.nodes();
+        return result;
+    }
+}
@@ -0,0 +1,71 @@
+package benchmarks;
+
+import chess.ChessGame;
+import chess.ChessJson;
+import com.google.gson.Gson;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// the gson round trip MySqlDataAccess does for every game it writes and reads, next to the FEN and
+// packed binary codecs
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+
+    @Param({"opening", "middlegame", "endgame"})
+    public String phase;
+
+    private final Gson gson = ChessJson.gson();
+    private ChessGame game;
+    private String json;
+    private String fen;
+    private byte[] packed;
+
+    @Setup
+    public void setUp() {
+        game = Positions.load(phase);
+        json = gson.toJson(game);
+        fen = game.toFen();
+        packed = game.toBytes();
+    }
+
+    @Benchmark
+    public String toJson() {
+        return gson.toJson(game);
+    }
+
+    @Benchmark
+    public ChessGame fromJson() {
+        return gson.fromJson(json, ChessGame.class);
+    }
+
+    @Benchmark
+    public ChessGame roundTrip() {
+        return gson.fromJson(gson.toJson(game), ChessGame.class);
+    }
+
+    @Benchmark
+    public String toFen() {
+        return game.toFen();
+    }
+
+    @Benchmark
+    public ChessGame fromFen() {
+        return ChessGame.fromFen(fen);
+    }
+
+    @Benchmark
+    public byte[] toBytes() {
+        return game.toBytes();
+    }
+
+    @Benchmark
+    public ChessGame fromBytes() {
+        return ChessGame.fromBytes(packed);
+    }
+}
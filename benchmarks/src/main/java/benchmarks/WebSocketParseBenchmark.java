@@ -0,0 +1,46 @@
+package benchmarks;
+
+import chess.ChessJson;
+import chess.ChessMove;
+import chess.ChessPiece;
+import chess.ChessPosition;
+import com.google.gson.Gson;
+import org.openjdk.jmh.annotations.*;
+import websocket.commands.MakeMoveCommand;
+import websocket.commands.UserGameCommand;
+
+import java.util.concurrent.TimeUnit;
+
+// Server.onWsMessage parses every message twice: once as UserGameCommand to read the type, then again as
+// the concrete command. this repeats those two steps for a MAKE_MOVE message
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WebSocketParseBenchmark {
+
+    private final Gson gson = ChessJson.gson();
+    private String json;
+
+    @Setup
+    public void setUp() {
+        ChessMove move = new ChessMove(new ChessPosition(7, 5), new ChessPosition(8, 5), ChessPiece.PieceType.QUEEN);
+        json = gson.toJson(new MakeMoveCommand("0f5c7a3e-2a41-4c8e-9d38-0e3b3d1c9a77", 42, move));
+    }
+
+    @Benchmark
+    public UserGameCommand commandType() {
+        return gson.fromJson(json, UserGameCommand.class);
+    }
+
+    @Benchmark
+    public MakeMoveCommand makeMoveCommand() {
+        UserGameCommand base = gson.fromJson(json, UserGameCommand.class);
+        if (base.getCommandType() != UserGameCommand.CommandType.MAKE_MOVE) {
+            throw new IllegalStateException("Expected MAKE_MOVE");
+        }
+        return gson.fromJson(json, MakeMoveCommand.class);
+    }
+}
@@ -49,7 +49,7 @@ public class BoardPrinter {
             for (int printedCol = 1; printedCol <= 8; printedCol++) {
                 int file = whiteView ? printedCol : (9 - printedCol);
 
-                ChessPosition pos = new ChessPosition(rank, file);
+                ChessPosition pos = ChessPosition.of(rank, file);
                 boolean light = isLightSquare(file, rank);
 
                 if (selected != null && selected.equals(pos)) {
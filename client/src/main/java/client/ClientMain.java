@@ -4,6 +4,7 @@ import chess.ChessGame;
 import chess.ChessMove;
 import chess.ChessPiece;
 import chess.ChessPosition;
+import chess.LegalMoveCache;
 import model.GameData;
 import ui.EscapeSequences;
 
@@ -29,6 +30,7 @@ public class ClientMain {
 
     private ChessGame.TeamColor currentPerspective = ChessGame.TeamColor.WHITE;
     private ChessGame lastGame = null;
+    private final LegalMoveCache moveCache = new LegalMoveCache(256);
 
 
     public ClientMain(String host, int port) {
@@ -433,7 +435,7 @@ public class ClientMain {
             return;
         }
 
-        ChessMove move = new ChessMove(from, to, promo);
+        ChessMove move = ChessMove.of(from, to, promo);
 
         ws.makeMove(authToken, currentGameId, move);
     }
@@ -455,7 +457,7 @@ public class ClientMain {
         int file = (fileChar - 'a') + 1;
         int rank = (rankChar - '1') + 1;
 
-        return new ChessPosition(rank, file);
+        return ChessPosition.of(rank, file);
     }
     private static ChessPiece.PieceType parsePromotion(String s) {
         if (s == null || s.isBlank()) {
@@ -506,7 +508,7 @@ public class ClientMain {
             System.out.println("Invalid square. Use a1 through h8.");
             return;
         }
-        var moves = lastGame.validMoves(from);
+        var moves = moveCache.validMoves(lastGame, from);
         if (moves == null || moves.isEmpty()) {
             System.out.print(EscapeSequences.ERASE_SCREEN);
             BoardPrinter.printBoard(lastGame.getBoard(), currentPerspective, from, Set.of());
@@ -1,5 +1,6 @@
 package client;
 
+import chess.ChessJson;
 import chess.ChessMove;
 import com.google.gson.Gson;
 import websocket.commands.ConnectCommand;
@@ -14,7 +15,7 @@ import java.util.function.Consumer;
 
 public class WebSocketFacade {
 
-    private final Gson gson = new Gson();
+    private final Gson gson = ChessJson.gson();
     private Session session;
 
     private final Consumer<LoadGameMessage> onLoadGame;
@@ -1,6 +1,7 @@
 package dataaccess;
 
 import chess.ChessGame;
+import chess.ChessJson;
 import com.google.gson.Gson;
 import model.AuthData;
 import model.GameData;
@@ -13,7 +14,7 @@ import java.util.Collection;
 
 public class MySqlDataAccess implements DataAccess{
 
-    private final Gson gson = new Gson();
+    private final Gson gson = ChessJson.gson();
 
     @Override
     public void clear() throws DataAccessException {
@@ -10,6 +10,7 @@ import model.AuthData;
 import model.GameData;
 import service.*;
 import chess.ChessGame;
+import chess.ChessJson;
 import chess.InvalidMoveException;
 import websocket.commands.*;
 import websocket.messages.*;
@@ -21,7 +22,7 @@ import java.util.concurrent.ConcurrentHashMap;
 public class Server {
 
     private final Javalin javalin;
-    private final Gson gson = new Gson();
+    private final Gson gson = ChessJson.gson();
     private final ConcurrentHashMap<Integer, Set<WsContext>> sessionsByGame = new ConcurrentHashMap<>();
 
     private record ConnInfo(String username, int gameId, String role) {}
@@ -327,14 +328,14 @@ public class Server {
                 ? ChessGame.TeamColor.BLACK
                 : ChessGame.TeamColor.WHITE;
 
-        boolean checkmate = game.isInCheckmate(opponent);
-        boolean stalemate = !checkmate && game.isInStalemate(opponent);
-        boolean check = !checkmate && !stalemate && game.isInCheck(opponent);
+        // the opponent is now the side to move, so one outcome covers mate, stalemate, check and the draw rules
+        ChessGame.Outcome outcome = game.getOutcome();
 
-        if (checkmate) {
+        if (outcome == ChessGame.Outcome.CHECKMATE) {
             game.setGameOver(true);
             game.setWinner(mover);
-        } else if (stalemate) {
+        } else if (outcome.isGameOver()) {
+            // stalemate and the draw rules end the game without a winner
             game.setGameOver(true);
             game.setWinner(null);
         }
@@ -354,12 +355,13 @@ public class Server {
 
         String opponentName = usernameForTeam(gameData, opponent);
 
-        if (game.isInCheckmate(opponent)) {
-            broadcast(info.gameId, new NotificationMessage(opponentName + " is in checkmate"));
-        } else if (game.isInStalemate(opponent)) {
-            broadcast(info.gameId, new NotificationMessage("Stalemate"));
-        } else if (game.isInCheck(opponent)) {
-            broadcast(info.gameId, new NotificationMessage(opponentName + " is in check"));
+        switch (outcome) {
+            case CHECKMATE -> broadcast(info.gameId, new NotificationMessage(opponentName + " is in checkmate"));
+            case STALEMATE -> broadcast(info.gameId, new NotificationMessage("Stalemate"));
+            case THREEFOLD_REPETITION -> broadcast(info.gameId, new NotificationMessage("Draw by threefold repetition"));
+            case FIFTY_MOVE_RULE -> broadcast(info.gameId, new NotificationMessage("Draw by the fifty-move rule"));
+            case CHECK -> broadcast(info.gameId, new NotificationMessage(opponentName + " is in check"));
+            default -> { }
         }
     }
 
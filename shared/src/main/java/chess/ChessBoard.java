@@ -5,14 +5,111 @@ import java.util.Objects;
 
 public class ChessBoard {
 
+    // index of the occupancy masks stored after the twelve piece masks
+    private static final int WHITE_BITS = 12;
+    private static final int BLACK_BITS = 13;
+    private static final int ALL_BITS = 14;
+
     // creates new 8 by 8 array
     ChessPiece[][] squares = new ChessPiece[8][8];
 
+    // bitboard mirror of squares: one mask per color and piece type, then white, black and all occupancy.
+    // transient so the json form stays the same, it is rebuilt from squares the first time it is needed
+    private transient long[] bits;
+    // zobrist key of the pieces, kept in step with bits (see Zobrist)
+    private transient long key;
+
+    // undo records for makeMove/unmakeMove: squares packed as from | to << 6, the piece that moved and the
+    // piece it captured. the arrays are reused between moves so trying a move does not allocate
+    private transient int[] undoSquares;
+    private transient ChessPiece[] undoMoved;
+    private transient ChessPiece[] undoCaptured;
+    private transient int undoDepth;
+
     public ChessBoard() { }
 
+    // copies another board without allocating new pieces, pieces are immutable so they can be shared
+    public ChessBoard(ChessBoard other) {
+        for (int r = 0; r < 8; r++) {
+            squares[r] = other.squares[r].clone();
+        }
+        if (other.bits != null) {
+            bits = other.bits.clone();
+            key = other.key;
+        }
+    }
+
     // adds piece to the board in the correct position
     public void addPiece(ChessPosition position, ChessPiece piece) {
-        squares[position.getRow()-1][position.getColumn()-1] = piece;
+        setPiece(Bitboards.square(position), piece);
+    }
+
+    /**
+     * Moves a piece in place and remembers what it needs to put the board back with
+     * {@link #unmakeMove()}. Moves can be nested, each unmakeMove reverts the latest one.
+     * No legality checking is done here.
+     *
+     * @return the piece that was captured, or null
+     */
+    public ChessPiece makeMove(int from, int to, ChessPiece.PieceType promotion) {
+        ChessPiece moved = getPiece(from);
+        ChessPiece captured = getPiece(to);
+        pushUndo(from, to, moved, captured);
+
+        ChessPiece placed = moved;
+        if (promotion != null) {
+            placed = ChessPiece.of(moved.getTeamColor(), promotion);
+        }
+        setPiece(from, null);
+        setPiece(to, placed);
+        return captured;
+    }
+
+    public ChessPiece makeMove(ChessMove move) {
+        return makeMove(Bitboards.square(move.getStartPosition()), Bitboards.square(move.getEndPosition()),
+                move.getPromotionPiece());
+    }
+
+    // reverts the most recent makeMove
+    public void unmakeMove() {
+        if (undoDepth == 0) {
+            throw new IllegalStateException("No move to unmake");
+        }
+        undoDepth--;
+        int packed = undoSquares[undoDepth];
+        setPiece(packed >>> 6, undoCaptured[undoDepth]);
+        setPiece(packed & 63, undoMoved[undoDepth]);
+        undoMoved[undoDepth] = null;
+        undoCaptured[undoDepth] = null;
+    }
+
+    private void pushUndo(int from, int to, ChessPiece moved, ChessPiece captured) {
+        if (undoSquares == null) {
+            undoSquares = new int[16];
+            undoMoved = new ChessPiece[16];
+            undoCaptured = new ChessPiece[16];
+        } else if (undoDepth == undoSquares.length) {
+            undoSquares = Arrays.copyOf(undoSquares, undoDepth * 2);
+            undoMoved = Arrays.copyOf(undoMoved, undoDepth * 2);
+            undoCaptured = Arrays.copyOf(undoCaptured, undoDepth * 2);
+        }
+        undoSquares[undoDepth] = from | to << 6;
+        undoMoved[undoDepth] = moved;
+        undoCaptured[undoDepth] = captured;
+        undoDepth++;
+    }
+
+    private void setPiece(int square, ChessPiece piece) {
+        if (bits != null) {
+            ChessPiece old = getPiece(square);
+            if (old != null) {
+                toggle(old, square);
+            }
+            if (piece != null) {
+                toggle(piece, square);
+            }
+        }
+        squares[square >>> 3][square & 7] = piece;
     }
 
     // returns what piece in a location
@@ -20,6 +117,61 @@ public class ChessBoard {
         return squares[position.getRow()-1][position.getColumn()-1];
     }
 
+    // same as above but using a 0..63 square index, see Bitboards
+    public ChessPiece getPiece(int square) {
+        return squares[square >>> 3][square & 7];
+    }
+
+    // mask of every square holding the given piece
+    public long pieces(ChessGame.TeamColor color, ChessPiece.PieceType type) {
+        return bits()[Bitboards.pieceIndex(color, type)];
+    }
+
+    // mask of every square holding a piece of the given color
+    public long occupancy(ChessGame.TeamColor color) {
+        return bits()[color == ChessGame.TeamColor.WHITE ? WHITE_BITS : BLACK_BITS];
+    }
+
+    // mask of every occupied square
+    public long occupied() {
+        return bits()[ALL_BITS];
+    }
+
+    /**
+     * @return the Zobrist key of the pieces on this board, updated on every change so reading it
+     * is O(1). It does not include the side to move, see {@link ChessGame#getZobristKey()}
+     */
+    public long getZobristKey() {
+        bits();
+        return key;
+    }
+
+    /**
+     * Reads a board from a FEN placement field, or from a whole FEN string whose other
+     * fields are ignored
+     */
+    public static ChessBoard fromFen(String fen) {
+        return Fen.readBoard(fen);
+    }
+
+    /**
+     * Reads a board from {@link PackedPosition} bytes, ignoring the flags byte
+     */
+    public static ChessBoard fromBytes(byte[] bytes) {
+        return PackedPosition.decodeBoard(bytes);
+    }
+
+    /**
+     * @return the FEN placement field for this board
+     */
+    public String toFen() {
+        return Fen.write(this);
+    }
+
+    public byte[] toBytes() {
+        return PackedPosition.encode(this);
+    }
+
     // reset the board
     public void resetBoard() {
 
@@ -28,6 +180,7 @@ public class ChessBoard {
                 squares[r][c] = null;
             }
         }
+        bits = null;
 
         // how the back row is organized
         ChessPiece.PieceType[] order = {
@@ -43,31 +196,80 @@ public class ChessBoard {
 
         // for the white rows, row 1 is the array above followed by rows of pawns
         for (int col = 1; col <= 8; col++) {
-            addPiece(new ChessPosition(1, col),
-                    new ChessPiece(ChessGame.TeamColor.WHITE, order[col - 1]));
-            addPiece(new ChessPosition(2, col),
-                    new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN));
+            addPiece(ChessPosition.of(1, col),
+                    ChessPiece.of(ChessGame.TeamColor.WHITE, order[col - 1]));
+            addPiece(ChessPosition.of(2, col),
+                    ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN));
         }
         // similar to above but at the top for black
         for (int col = 1; col <= 8; col++) {
-            addPiece(new ChessPosition(8, col),
-                    new ChessPiece(ChessGame.TeamColor.BLACK, order[col - 1]));
-            addPiece(new ChessPosition(7, col),
-                    new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN));
+            addPiece(ChessPosition.of(8, col),
+                    ChessPiece.of(ChessGame.TeamColor.BLACK, order[col - 1]));
+            addPiece(ChessPosition.of(7, col),
+                    ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN));
         }
     }
 
+    /**
+     * Removes every piece and any moves waiting to be unmade, keeping the board's arrays so a
+     * scratch board can be refilled without allocating
+     */
+    public void clear() {
+        long occupied = occupied();
+        while (occupied != 0) {
+            setPiece(Long.numberOfTrailingZeros(occupied), null);
+            occupied &= occupied - 1;
+        }
+        if (undoDepth > 0) {
+            Arrays.fill(undoMoved, 0, undoDepth, null);
+            Arrays.fill(undoCaptured, 0, undoDepth, null);
+            undoDepth = 0;
+        }
+    }
+
+    private long[] bits() {
+        if (bits == null) {
+            rebuildBits();
+        }
+        return bits;
+    }
+
+    // boards built by gson or before the first mask query only have squares filled in
+    private void rebuildBits() {
+        bits = new long[15];
+        key = 0;
+        for (int square = 0; square < 64; square++) {
+            ChessPiece piece = getPiece(square);
+            if (piece != null) {
+                toggle(piece, square);
+            }
+        }
+    }
+
+    private void toggle(ChessPiece piece, int square) {
+        long mask = Bitboards.bit(square);
+        int index = Bitboards.pieceIndex(piece);
+        bits[index] ^= mask;
+        key ^= Zobrist.piece(index, square);
+        bits[piece.getTeamColor() == ChessGame.TeamColor.WHITE ? WHITE_BITS : BLACK_BITS] ^= mask;
+        bits[ALL_BITS] ^= mask;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (o == null || getClass() != o.getClass()) {
             return false;
         }
         ChessBoard that = (ChessBoard) o;
+        // different keys always mean different boards, equal keys still get the full comparison
+        if (getZobristKey() != that.getZobristKey()) {
+            return false;
+        }
         return Objects.deepEquals(squares, that.squares);
     }
 
     @Override
     public int hashCode() {
-        return Arrays.deepHashCode(squares);
+        return Long.hashCode(getZobristKey());
     }
-}
\ No newline at end of file
+}
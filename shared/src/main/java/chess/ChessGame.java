@@ -1,10 +1,13 @@
 package chess;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.List;
 import java.util.Objects;
 
+import chess.pieces.Attacks;
+import chess.pieces.LegalMoves;
+
 /**
  * For a class that can manage a chess game, making moves on a board
  * <p>
@@ -15,12 +18,49 @@ public class ChessGame {
 
 
 
+    private static final int MOVE_BITS = (1 << 15) - 1;
+    private static final int CAPTURE_SHIFT = 15;
+    private static final int CLOCK_SHIFT = 19;
+    private static final int MAX_STORED_CLOCK = (1 << 12) - 1;
+
+    // the fifty-move rule counts both players' moves
+    private static final int FIFTY_MOVE_PLIES = 100;
+    // positions kept for repetition checks, enough for everything the fifty-move clock allows
+    private static final int REPETITION_WINDOW = 128;
+
     private TeamColor teamTurn = TeamColor.WHITE;
     private ChessBoard board;
 
     private boolean gameOver = false;
     private TeamColor winner = null; // null for stalemate, or winner color
 
+    // moves played, one entry per ply: the packed move (see Moves) in bits 0-14, the captured piece's
+    // pieceIndex + 1 (0 for none) in bits 15-18 and the halfmove clock before the move in bits 19-30.
+    // historyLength entries are valid and the first historyPly of them are on the board, the rest can be
+    // redone. the array grows by doubling and is null until the first move so games without moves
+    // serialize as before. ChessJson trims the free slots off before writing it
+    private int[] history;
+    private int historyLength;
+    private int historyPly;
+
+    // plies since the last capture or pawn move
+    private int halfmoveClock;
+
+    // Zobrist keys of the positions this game has moved away from, the one left at ply p in slot
+    // p % REPETITION_WINDOW. entries stay right through undo and redo because a slot is only rewritten
+    // when its ply is left again. not serialized, rebuilt from the history when needed
+    private transient long[] positionKeys;
+
+    private transient MoveList moveScratch;
+    private transient LegalMoveCache moveCache;
+
+    // mate, stalemate or check state of the position whose key is outcomeKey, see getOutcome. keyed on the
+    // position rather than cleared by makeMove so that setBoard, setTeamTurn and direct board edits can
+    // never leave it stale. draws depend on the history too and are not cached
+    private transient Outcome outcome;
+    private transient long outcomeKey;
+    private transient int legalMoveCount;
+
     public boolean isGameOver() { return gameOver; }
     public void setGameOver(boolean gameOver) { this.gameOver = gameOver; }
 
@@ -33,6 +73,34 @@ public class ChessGame {
 
     }
 
+    /**
+     * Reads a game from FEN, see {@link Fen}
+     */
+    public static ChessGame fromFen(String fen) {
+        return Fen.read(fen);
+    }
+
+    /**
+     * Reads a game from its {@link PackedPosition} bytes
+     */
+    public static ChessGame fromBytes(byte[] bytes) {
+        return PackedPosition.decode(bytes);
+    }
+
+    /**
+     * @return the position as FEN, see {@link Fen}
+     */
+    public String toFen() {
+        return Fen.write(this);
+    }
+
+    /**
+     * @return the position, side to move and game over state as {@link PackedPosition} bytes
+     */
+    public byte[] toBytes() {
+        return PackedPosition.encode(this);
+    }
+
     /**
      * @return Which team's turn it is
      */
@@ -57,6 +125,42 @@ public class ChessGame {
         BLACK
     }
 
+    /**
+     * State of the position for the side to move
+     */
+    public enum Outcome {
+        NORMAL,
+        CHECK,
+        CHECKMATE,
+        STALEMATE,
+        THREEFOLD_REPETITION,
+        FIFTY_MOVE_RULE;
+
+        /**
+         * @return True for outcomes that end the game
+         */
+        public boolean isGameOver() {
+            return this != NORMAL && this != CHECK;
+        }
+    }
+
+    /**
+     * Lets validMoves answer from a cache of whole-position move sets, which can be shared
+     * with other games. isLegal and makeMove only use an entry that is already cached and
+     * otherwise check the single move on its own. Pass null to stop using a cache.
+     */
+    public void setMoveCache(LegalMoveCache moveCache) {
+        this.moveCache = moveCache;
+    }
+
+    /**
+     * @return Zobrist key of the position: the board's pieces plus the side to move. Equal
+     * positions always have equal keys, and the key is kept up to date so this is O(1)
+     */
+    public long getZobristKey() {
+        return board.getZobristKey() ^ Zobrist.side(teamTurn);
+    }
+
     /**
      * Gets a valid moves for a piece at the given location
      *
@@ -69,18 +173,25 @@ public class ChessGame {
         if (piece == null) {
             return null;
         }
-        Collection<ChessMove> potential = piece.pieceMoves(board, startPosition);
-        List<ChessMove> legalMoves = new ArrayList<>();
-        if (potential == null) {
-            return legalMoves;
+        // the cache only holds the side to move
+        if (moveCache != null && piece.getTeamColor() == teamTurn) {
+            return moveCache.get(this).moves(Bitboards.square(startPosition));
         }
+        MoveList legal = legalMoves(Bitboards.square(startPosition), moveScratch());
+        return legal.toChessMoves(new ArrayList<>(legal.size()));
+    }
 
-        for(ChessMove move : potential) {
-            if (safeMove(startPosition, piece, move)){
-                legalMoves.add(move);
-            }
-        }
-        return legalMoves;
+    /**
+     * Gets every valid move of one team in a single pass over its pieces
+     *
+     * @param team the team to get valid moves for
+     * @return the valid moves, empty when the team has none
+     */
+    public Collection<ChessMove> allValidMoves(TeamColor team) {
+        MoveList moves = moveScratch();
+        moves.clear();
+        LegalMoves.generate(board, team, moves);
+        return moves.toChessMoves(new ArrayList<>(moves.size()));
     }
 
     /**
@@ -91,6 +202,9 @@ public class ChessGame {
      */
     public void makeMove(ChessMove move) throws InvalidMoveException {
         ChessPosition from = move.getStartPosition();
+        if (!onBoard(from) || !onBoard(move.getEndPosition())) {
+            throw new InvalidMoveException("Off the board: " + move);
+        }
         ChessPiece mover = board.getPiece(from);
 
         if (mover == null) {
@@ -103,9 +217,7 @@ public class ChessGame {
             throw new InvalidMoveException("It is " + teamTurn + "'s turn");
         }
 
-        Collection<ChessMove> legalMoves = validMoves(from);
-
-        if (legalMoves == null || !legalMoves.contains(move)) {
+        if (!isLegalMove(move)) {
             throw new InvalidMoveException("Illegal move: " + move);
         }
 
@@ -122,51 +234,263 @@ public class ChessGame {
             finalType = mover.getPieceType();
         }
 
+        record(Moves.encode(move), mover, captured);
+
         board.addPiece(from, null);
-        board.addPiece(move.getEndPosition(), new ChessPiece(mover.getTeamColor(), finalType));
+        board.addPiece(move.getEndPosition(), ChessPiece.of(mover.getTeamColor(), finalType));
 
         teamTurn = opponent(teamTurn);
     }
 
     /**
-     * Determines if the given team is in check
+     * @return the number of moves played to reach the current position
+     */
+    public int getPly() {
+        return historyPly;
+    }
+
+    /**
+     * @return the number of moves recorded, including ones that were undone and can be redone
+     */
+    public int getHistoryLength() {
+        return historyLength;
+    }
+
+    /**
+     * @param ply index of a move, 0 for the first move played
+     * @return the move played at that ply
+     */
+    public ChessMove getMove(int ply) {
+        Objects.checkIndex(ply, historyLength);
+        return Moves.toChessMove(history[ply] & MOVE_BITS);
+    }
+
+    /**
+     * Forgets every recorded move and zeroes the halfmove clock. setBoard and setTeamTurn
+     * leave the history alone, so call this after using them to set up an unrelated position.
+     */
+    public void resetHistory() {
+        history = null;
+        historyLength = 0;
+        historyPly = 0;
+        halfmoveClock = 0;
+        positionKeys = null;
+    }
+
+    /**
+     * Takes back the last move played. The game over state is left alone.
      *
-     * @param teamColor which team to check for check
-     * @return True if the specified team is in check
+     * @return false if there is no move to take back
+     * @throws IllegalStateException if the board no longer matches the history, e.g. after
+     * setBoard without resetHistory
      */
-    public boolean isInCheck(TeamColor teamColor) {
-        ChessPosition king = findKing(teamColor);
-        if (king == null) {
+    public boolean undoMove() {
+        if (historyPly == 0) {
             return false;
         }
+        int entry = history[historyPly - 1];
+        int move = entry & MOVE_BITS;
+        int captured = (entry >>> CAPTURE_SHIFT) & 0xF;
+        ChessPiece moved = historyPiece(Moves.to(move), opponent(teamTurn));
+        if (board.getPiece(Moves.from(move)) != null
+                || (Moves.isPromotion(move) && moved.getPieceType() != Moves.promotion(move))) {
+            throw historyMismatch();
+        }
+        historyPly--;
+        halfmoveClock = entry >>> CLOCK_SHIFT;
+        if (Moves.isPromotion(move)) {
+            moved = ChessPiece.of(moved.getTeamColor(), ChessPiece.PieceType.PAWN);
+        }
+        board.addPiece(Bitboards.position(Moves.to(move)), captured == 0 ? null : Bitboards.piece(captured - 1));
+        board.addPiece(Bitboards.position(Moves.from(move)), moved);
+        teamTurn = opponent(teamTurn);
+        return true;
+    }
 
-        TeamColor opp = opponent(teamColor);
-
-        for (int r = 1; r <= 8; r++) {
-            for (int c = 1; c <= 8; c++) {
-                ChessPosition pos = new ChessPosition(r, c);
-                ChessPiece piece = board.getPiece(pos);
+    /**
+     * Plays again the last move taken back by {@link #undoMove()}
+     *
+     * @return false if there is no move to redo
+     * @throws IllegalStateException if the board no longer matches the history
+     */
+    public boolean redoMove() {
+        if (historyPly == historyLength) {
+            return false;
+        }
+        int move = history[historyPly] & MOVE_BITS;
+        ChessPiece moved = historyPiece(Moves.from(move), teamTurn);
+        ChessPiece target = board.getPiece(Moves.to(move));
+        if ((target != null && target.getTeamColor() == teamTurn)
+                || (Moves.isPromotion(move) && moved.getPieceType() != ChessPiece.PieceType.PAWN)) {
+            throw historyMismatch();
+        }
+        rememberPosition();
+        advanceClock(moved, target);
+        historyPly++;
+        if (Moves.isPromotion(move)) {
+            moved = ChessPiece.of(moved.getTeamColor(), Moves.promotion(move));
+        }
+        board.addPiece(Bitboards.position(Moves.from(move)), null);
+        board.addPiece(Bitboards.position(Moves.to(move)), moved);
+        teamTurn = opponent(teamTurn);
+        return true;
+    }
 
-                if (piece == null || piece.getTeamColor() != opp) {
-                    continue;
-                }
+    /**
+     * Undoes or redoes moves until ply moves of the history are on the board
+     *
+     * @param ply between 0 and {@link #getHistoryLength()}
+     */
+    public void goToPly(int ply) {
+        Objects.checkIndex(ply, historyLength + 1);
+        while (historyPly > ply) {
+            undoMove();
+        }
+        while (historyPly < ply) {
+            redoMove();
+        }
+    }
 
-                Collection<ChessMove> fake = piece.pieceMoves(board, pos);
+    /**
+     * @return a copy of the board as it was after ply moves, leaving this game where it is
+     */
+    public ChessBoard getBoardAt(int ply) {
+        int current = historyPly;
+        goToPly(ply);
+        ChessBoard copy = new ChessBoard(board);
+        goToPly(current);
+        return copy;
+    }
 
-                if (fake == null) {
-                    continue;
-                }
+    /**
+     * Gets the state of the current position for the team whose turn it is. Mate, stalemate
+     * and check are worked out once per position, so asking again before the next move costs
+     * nothing. Checkmate and stalemate take precedence over the draw rules.
+     *
+     * @return whether the side to move is in check, checkmated, stalemated, drawn by
+     * repetition or the fifty-move rule, or none of these
+     */
+    public Outcome getOutcome() {
+        Outcome position = positionOutcome();
+        if (position == Outcome.CHECKMATE || position == Outcome.STALEMATE) {
+            return position;
+        }
+        if (isThreefoldRepetition()) {
+            return Outcome.THREEFOLD_REPETITION;
+        }
+        if (halfmoveClock >= FIFTY_MOVE_PLIES) {
+            return Outcome.FIFTY_MOVE_RULE;
+        }
+        return position;
+    }
 
-                for (ChessMove move : fake) {
-                    if (king.equals(move.getEndPosition())) {
-                        return true;
-                    }
-                }
+    /**
+     * @return True if the current position, with the same side to move, has occurred twice
+     * before since the last capture or pawn move
+     */
+    public boolean isThreefoldRepetition() {
+        long[] keys = positionKeys();
+        long key = getZobristKey();
+        int seen = 0;
+        // the same side is to move only every other ply
+        for (int back = 2; back <= repetitionDepth(); back += 2) {
+            if (keys[(historyPly - back) % REPETITION_WINDOW] == key && ++seen == 2) {
+                return true;
             }
         }
         return false;
     }
 
+    /**
+     * @return the number of plies since the last capture or pawn move
+     */
+    public int getHalfmoveClock() {
+        return halfmoveClock;
+    }
+
+    /**
+     * Sets the halfmove clock, e.g. from a FEN string. Call after {@link #resetHistory()},
+     * which zeroes it.
+     */
+    public void setHalfmoveClock(int halfmoveClock) {
+        if (halfmoveClock < 0) {
+            throw new IllegalArgumentException("Halfmove clock cannot be negative: " + halfmoveClock);
+        }
+        this.halfmoveClock = halfmoveClock;
+    }
+
+    // the cached part of getOutcome, which depends on the position alone
+    private Outcome positionOutcome() {
+        long key = getZobristKey();
+        if (outcome == null || outcomeKey != key) {
+            boolean check = isInCheck(teamTurn);
+            if (!anyLegalMove(teamTurn)) {
+                outcome = check ? Outcome.CHECKMATE : Outcome.STALEMATE;
+            }
+            else {
+                outcome = check ? Outcome.CHECK : Outcome.NORMAL;
+            }
+            legalMoveCount = -1;
+            outcomeKey = key;
+        }
+        return outcome;
+    }
+
+    /**
+     * @return the number of legal moves the team whose turn it is has. Counted the first
+     * time it is asked for and cached along with {@link #getOutcome()}
+     */
+    public int getLegalMoveCount() {
+        positionOutcome();
+        if (legalMoveCount < 0) {
+            MoveList moves = moveScratch();
+            moves.clear();
+            LegalMoves.generate(board, teamTurn, moves);
+            legalMoveCount = moves.size();
+        }
+        return legalMoveCount;
+    }
+
+    /**
+     * Decides whether one move is legal for the team whose turn it is, checking only that
+     * move rather than generating every move of the piece
+     *
+     * @param move the move to test
+     * @return True if makeMove would accept the move
+     */
+    public boolean isLegal(ChessMove move) {
+        if (move == null || !onBoard(move.getStartPosition()) || !onBoard(move.getEndPosition())) {
+            return false;
+        }
+        ChessPiece mover = board.getPiece(move.getStartPosition());
+        return mover != null && mover.getTeamColor() == teamTurn && isLegalMove(move);
+    }
+
+    private boolean isLegalMove(ChessMove move) {
+        // filling the cache generates every move of the position, so a miss checks just this one
+        LegalMoveCache.Entry cached = moveCache == null ? null : moveCache.peek(getZobristKey());
+        if (cached != null) {
+            return cached.contains(move);
+        }
+        return LegalMoves.isLegal(board, Moves.encode(move));
+    }
+
+    /**
+     * Determines if the given team is in check
+     *
+     * @param teamColor which team to check for check
+     * @return True if the specified team is in check
+     */
+    public boolean isInCheck(TeamColor teamColor) {
+        long kings = board.pieces(teamColor, ChessPiece.PieceType.KING);
+        if (kings == 0) {
+            return false;
+        }
+
+        // look outward from the king for an attacker rather than generating every enemy move
+        return Attacks.isSquareAttacked(board, Long.numberOfTrailingZeros(kings), opponent(teamColor));
+    }
+
     /**
      * Determines if the given team is in checkmate
      *
@@ -174,6 +498,9 @@ public class ChessGame {
      * @return True if the specified team is in checkmate
      */
     public boolean isInCheckmate(TeamColor teamColor) {
+        if (teamColor == teamTurn) {
+            return positionOutcome() == Outcome.CHECKMATE;
+        }
         return isInCheck(teamColor) && !anyLegalMove(teamColor);
     }
 
@@ -185,6 +512,9 @@ public class ChessGame {
      * @return True if the specified team is in stalemate, otherwise false
      */
     public boolean isInStalemate(TeamColor teamColor) {
+        if (teamColor == teamTurn) {
+            return positionOutcome() == Outcome.STALEMATE;
+        }
         return !isInCheck(teamColor) && !anyLegalMove(teamColor);
     }
 
@@ -215,76 +545,104 @@ public class ChessGame {
         }
     }
 
-    private ChessBoard copyBoard() {
-        ChessBoard copy = new ChessBoard();
-        for (int r = 1; r <= 8; r++) {
-            for (int c = 1; c <= 8; c++) {
-                ChessPosition pos = new ChessPosition(r, c);
-                ChessPiece piece = board.getPiece(pos);
-                if (piece != null) {
-                    copy.addPiece(pos, new ChessPiece(piece.getTeamColor(), piece.getPieceType()));
-                }
-                else {
-                    copy.addPiece(pos, null);
-                }
-            }
+    // drops any redo entries and appends the move about to be played, called before the board changes
+    private void record(int move, ChessPiece mover, ChessPiece captured) {
+        if (history == null) {
+            history = new int[16];
         }
-        return copy;
+        else if (historyPly == history.length) {
+            history = Arrays.copyOf(history, history.length * 2);
+        }
+        int code = captured == null ? 0 : Bitboards.pieceIndex(captured) + 1;
+        int clock = Math.min(halfmoveClock, MAX_STORED_CLOCK);
+        history[historyPly] = move | code << CAPTURE_SHIFT | clock << CLOCK_SHIFT;
+        rememberPosition();
+        advanceClock(mover, captured);
+        historyPly++;
+        historyLength = historyPly;
     }
 
-    private boolean safeMove (ChessPosition from, ChessPiece mover, ChessMove move) {
-        ChessBoard sim = copyBoard();
-
-        ChessPiece.PieceType promotion = move.getPromotionPiece();
-        ChessPiece.PieceType finalType;
+    private void advanceClock(ChessPiece mover, ChessPiece captured) {
+        if (captured != null || mover.getPieceType() == ChessPiece.PieceType.PAWN) {
+            halfmoveClock = 0;
+        }
+        else {
+            halfmoveClock++;
+        }
+    }
 
-        if(promotion != null) {
-            finalType = promotion;
+    // drops the free slots at the end of the history array, so that serializing it writes only the
+    // moves recorded. the next move grows it again
+    void trimHistory() {
+        if (history != null && history.length > historyLength) {
+            history = historyLength == 0 ? null : Arrays.copyOf(history, historyLength);
         }
+    }
 
-        else {
-            finalType = mover.getPieceType();
+    // the history only fits the board it was played on. a board swapped in by setBoard without
+    // resetHistory is caught here rather than having moves replayed onto it
+    private ChessPiece historyPiece(int square, TeamColor color) {
+        ChessPiece piece = board.getPiece(square);
+        if (piece == null || piece.getTeamColor() != color) {
+            throw historyMismatch();
         }
+        return piece;
+    }
 
-        sim.addPiece(from, null);
-        ChessPiece newPiece =new ChessPiece(mover.getTeamColor(), finalType);
-        sim.addPiece(move.getEndPosition(), newPiece);
+    private static IllegalStateException historyMismatch() {
+        return new IllegalStateException("Move history does not match the board; call resetHistory after setting up a new position");
+    }
 
-        ChessGame checkGame = new ChessGame();
-        checkGame.setBoard(sim);
-        return !checkGame.isInCheck(mover.getTeamColor());
+    // stores the key of the position about to be left
+    private void rememberPosition() {
+        positionKeys()[historyPly % REPETITION_WINDOW] = getZobristKey();
     }
 
-    private ChessPosition findKing (TeamColor color) {
-        for (int r = 1; r <= 8; r++) {
-            for (int c = 1; c <= 8; c++) {
-                ChessPosition pos = new ChessPosition(r, c);
-                ChessPiece piece = board.getPiece(pos);
-                if (piece != null
-                        && piece.getTeamColor() == color
-                        && piece.getPieceType() == ChessPiece.PieceType.KING) {
-                    return pos;
-                }
+    private long[] positionKeys() {
+        if (positionKeys == null) {
+            positionKeys = new long[REPETITION_WINDOW];
+            // a game read from JSON has its history but no keys. stepping back over the plies the clock
+            // covers and redoing them fills the keys in again
+            int ply = historyPly;
+            int back = repetitionDepth();
+            for (int i = 0; i < back; i++) {
+                undoMove();
+            }
+            while (historyPly < ply) {
+                redoMove();
             }
         }
-        return null;
+        return positionKeys;
+    }
+
+    // how many plies back a repeated position can be: nothing before the last capture or pawn move, and
+    // nothing before the start of the history
+    private int repetitionDepth() {
+        return Math.min(Math.min(halfmoveClock, historyPly), REPETITION_WINDOW - 1);
+    }
+
+    private static boolean onBoard(ChessPosition position) {
+        return position != null && position.getRow() >= 1 && position.getRow() <= 8
+                && position.getColumn() >= 1 && position.getColumn() <= 8;
+    }
+
+    // fills moves with the legal moves of the piece on square, the buffer is cleared first
+    private MoveList legalMoves(int square, MoveList moves) {
+        moves.clear();
+        LegalMoves.generate(board, square, moves);
+        return moves;
     }
 
     private boolean anyLegalMove (TeamColor color) {
-        for (int r = 1; r <= 8; r++) {
-            for (int c = 1; c <= 8; c++) {
-                ChessPosition pos = new ChessPosition(r, c);
-                ChessPiece piece = board.getPiece(pos);
-                if (piece == null || piece.getTeamColor() != color) {
-                    continue;
-                }
-                Collection<ChessMove> legalMove = validMoves(pos);
-                if (legalMove != null && !legalMove.isEmpty()){
-                    return true;
-                }
-            }
+        return LegalMoves.hasLegalMove(board, color, moveScratch());
+    }
+
+    // the scratch buffer is transient and created on first use so gson neither writes nor needs it
+    private MoveList moveScratch() {
+        if (moveScratch == null) {
+            moveScratch = new MoveList();
         }
-        return false;
+        return moveScratch;
     }
 
     @Override
@@ -293,11 +651,14 @@ public class ChessGame {
             return false;
         }
         ChessGame chessGame = (ChessGame) o;
+        if (getZobristKey() != chessGame.getZobristKey()) {
+            return false;
+        }
         return gameOver == chessGame.gameOver && teamTurn == chessGame.teamTurn && Objects.equals(board, chessGame.board);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(teamTurn, board, gameOver);
+        return 31 * Long.hashCode(getZobristKey()) + Boolean.hashCode(gameOver);
     }
 }
@@ -14,6 +14,10 @@ public class ChessMove {
     private final ChessPosition endPosition;
     private final ChessPiece.PieceType promotionPiece;
 
+    // every on-board start, end and promotion combination, indexed by the packed move (see Moves) and
+    // filled in on first use. a race only creates an extra equal instance since moves are immutable
+    private static final ChessMove[] CACHE = new ChessMove[1 << 15];
+
     public ChessMove(ChessPosition startPosition, ChessPosition endPosition,
                      ChessPiece.PieceType promotionPiece) {
         this.startPosition = startPosition;
@@ -21,6 +25,36 @@ public class ChessMove {
         this.promotionPiece = promotionPiece;
     }
 
+    /**
+     * Returns the shared instance for a move. Moves are immutable, so this can be used
+     * anywhere the constructor is; moves with a position off the board get a new instance.
+     */
+    public static ChessMove of(ChessPosition startPosition, ChessPosition endPosition,
+                               ChessPiece.PieceType promotionPiece) {
+        if (!onBoard(startPosition) || !onBoard(endPosition)) {
+            return new ChessMove(startPosition, endPosition, promotionPiece);
+        }
+        return of(Moves.encode(Bitboards.square(startPosition), Bitboards.square(endPosition), promotionPiece));
+    }
+
+    /**
+     * Returns the shared instance for a move packed with {@link Moves}
+     */
+    public static ChessMove of(int packedMove) {
+        ChessMove move = CACHE[packedMove];
+        if (move == null) {
+            move = new ChessMove(Bitboards.position(Moves.from(packedMove)), Bitboards.position(Moves.to(packedMove)),
+                    Moves.promotion(packedMove));
+            CACHE[packedMove] = move;
+        }
+        return move;
+    }
+
+    private static boolean onBoard(ChessPosition position) {
+        return position != null && position.getRow() >= 1 && position.getRow() <= 8
+                && position.getColumn() >= 1 && position.getColumn() <= 8;
+    }
+
     /**
      * @return ChessPosition of starting location
      */
@@ -17,11 +17,29 @@ public class ChessPiece {
     private final ChessGame.TeamColor pieceColor;
     private final PieceType type;
 
+    // one instance per color and type, filled in on first use of of()
+    private static final ChessPiece[] CACHE = new ChessPiece[12];
+
     public ChessPiece(ChessGame.TeamColor pieceColor, ChessPiece.PieceType type) {
         this.pieceColor = pieceColor;
         this.type = type;
     }
 
+    /**
+     * Returns the shared instance for a color and type. Pieces are immutable, so this can be
+     * used anywhere the constructor is.
+     */
+    public static ChessPiece of(ChessGame.TeamColor pieceColor, ChessPiece.PieceType type) {
+        int index = pieceColor.ordinal() * 6 + type.ordinal();
+        ChessPiece piece = CACHE[index];
+        if (piece == null) {
+            // a race here only creates an extra equal instance, the fields are final so sharing is safe
+            piece = new ChessPiece(pieceColor, type);
+            CACHE[index] = piece;
+        }
+        return piece;
+    }
+
     /**
      * The various different chess piece options
      */
@@ -78,6 +96,21 @@ public class ChessPiece {
         return List.of();
     }
 
+    /**
+     * Same as {@link #pieceMoves(ChessBoard, ChessPosition)} for this piece standing on the
+     * given 0..63 square, but appends packed moves (see {@link Moves}) to a reusable buffer
+     */
+    public void pieceMoves(ChessBoard board, int square, MoveList moves) {
+        switch (type) {
+            case BISHOP -> Bishop.generate(board, square, pieceColor, moves);
+            case ROOK -> Rook.generate(board, square, pieceColor, moves);
+            case QUEEN -> Queen.generate(board, square, pieceColor, moves);
+            case KING -> King.generate(board, square, pieceColor, moves);
+            case KNIGHT -> Knight.generate(board, square, pieceColor, moves);
+            case PAWN -> Pawn.generate(board, square, pieceColor, moves);
+        }
+    }
+
     @Override
     public boolean equals(Object o) {
         if (o == null || getClass() != o.getClass()) {
@@ -13,11 +13,31 @@ public class ChessPosition {
     private final int row;
     private final int col;
 
+    // the 64 squares of the board, shared by everything that asks for a position through of()
+    private static final ChessPosition[] CACHE = new ChessPosition[64];
+
+    static {
+        for (int square = 0; square < 64; square++) {
+            CACHE[square] = new ChessPosition(square / 8 + 1, square % 8 + 1);
+        }
+    }
+
     public ChessPosition(int row, int col) {
         this.row = row;
         this.col = col;
     }
 
+    /**
+     * Returns the shared instance for a square on the board. Positions are immutable, so this
+     * can be used anywhere the constructor is; positions off the board get a new instance.
+     */
+    public static ChessPosition of(int row, int col) {
+        if (row < 1 || row > 8 || col < 1 || col > 8) {
+            return new ChessPosition(row, col);
+        }
+        return CACHE[(row - 1) * 8 + (col - 1)];
+    }
+
     /**
      * @return which row this position is in
      * 1 codes for the bottom row
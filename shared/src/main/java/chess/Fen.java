@@ -0,0 +1,182 @@
+package chess;
+
+/**
+ * Reads and writes positions in Forsyth-Edwards Notation, e.g.
+ * {@code rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w - - 0 1}.
+ * <p>
+ * The piece placement, side to move and halfmove clock are used. This game has no
+ * castling or en passant, so those fields are accepted but ignored and written as
+ * {@code - -}. The full move number is ignored on reading and written from the game's
+ * history. Both directions walk the characters directly.
+ */
+public final class Fen {
+
+    private static final char[] LETTERS = {'K', 'Q', 'B', 'N', 'R', 'P', 'k', 'q', 'b', 'n', 'r', 'p'};
+
+    private Fen() { }
+
+    public static ChessGame read(String fen) {
+        ChessBoard board = new ChessBoard();
+        int end = readPlacement(fen, board);
+
+        ChessGame game = new ChessGame();
+        game.setBoard(board);
+        int side = skipSpaces(fen, end);
+        game.setTeamTurn(readSide(fen, side));
+
+        // castling and en passant are skipped, then the halfmove clock is read if present
+        int field = skipField(fen, skipField(fen, skipField(fen, side)));
+        if (field < fen.length()) {
+            int clock = 0;
+            for (int i = field; i < fen.length() && fen.charAt(i) != ' '; i++) {
+                char c = fen.charAt(i);
+                if (c < '0' || c > '9' || clock > 100_000) {
+                    throw new IllegalArgumentException("Bad FEN halfmove clock: " + fen);
+                }
+                clock = clock * 10 + (c - '0');
+            }
+            game.setHalfmoveClock(clock);
+        }
+        return game;
+    }
+
+    /**
+     * Reads only the board from a FEN string; anything after the placement is ignored
+     */
+    public static ChessBoard readBoard(String fen) {
+        ChessBoard board = new ChessBoard();
+        readPlacement(fen, board);
+        return board;
+    }
+
+    /**
+     * Reads the board and side to move into an existing board, which is cleared first. For
+     * decoding many positions into one scratch board; the halfmove clock is not read.
+     *
+     * @return the side to move
+     */
+    public static ChessGame.TeamColor readInto(String fen, ChessBoard board) {
+        board.clear();
+        int end = readPlacement(fen, board);
+        return readSide(fen, skipSpaces(fen, end));
+    }
+
+    public static String write(ChessGame game) {
+        StringBuilder out = new StringBuilder(64);
+        writePlacement(game.getBoard(), out);
+        out.append(game.getTeamTurn() == ChessGame.TeamColor.WHITE ? " w" : " b");
+        out.append(" - - ").append(game.getHalfmoveClock());
+
+        // the full move number starts at 1 and goes up after each black move
+        boolean blackStarted = (game.getTeamTurn() == ChessGame.TeamColor.BLACK) != (game.getPly() % 2 == 1);
+        out.append(' ').append(1 + (game.getPly() + (blackStarted ? 1 : 0)) / 2);
+        return out.toString();
+    }
+
+    /**
+     * @return the piece placement field alone
+     */
+    public static String write(ChessBoard board) {
+        StringBuilder out = new StringBuilder(64);
+        writePlacement(board, out);
+        return out.toString();
+    }
+
+    // fills board from the placement field and returns the index just past it
+    private static int readPlacement(String fen, ChessBoard board) {
+        int i = skipSpaces(fen, 0);
+        int row = 8;
+        int col = 1;
+        for (; i < fen.length() && fen.charAt(i) != ' '; i++) {
+            char c = fen.charAt(i);
+            if (c == '/') {
+                if (col != 9 || row == 1) {
+                    throw new IllegalArgumentException("Bad FEN placement: " + fen);
+                }
+                row--;
+                col = 1;
+            } else if (c >= '1' && c <= '8') {
+                col += c - '0';
+                if (col > 9) {
+                    throw new IllegalArgumentException("Bad FEN placement: " + fen);
+                }
+            } else {
+                if (col > 8) {
+                    throw new IllegalArgumentException("Bad FEN placement: " + fen);
+                }
+                board.addPiece(ChessPosition.of(row, col), piece(c));
+                col++;
+            }
+        }
+        if (row != 1 || col != 9) {
+            throw new IllegalArgumentException("Bad FEN placement: " + fen);
+        }
+        return i;
+    }
+
+    private static void writePlacement(ChessBoard board, StringBuilder out) {
+        for (int row = 8; row >= 1; row--) {
+            int empty = 0;
+            for (int col = 1; col <= 8; col++) {
+                ChessPiece piece = board.getPiece(Bitboards.square(row, col));
+                if (piece == null) {
+                    empty++;
+                    continue;
+                }
+                if (empty > 0) {
+                    out.append((char) ('0' + empty));
+                    empty = 0;
+                }
+                out.append(LETTERS[Bitboards.pieceIndex(piece)]);
+            }
+            if (empty > 0) {
+                out.append((char) ('0' + empty));
+            }
+            if (row > 1) {
+                out.append('/');
+            }
+        }
+    }
+
+    // the side to move field starting at i, white if there is none
+    private static ChessGame.TeamColor readSide(String fen, int i) {
+        if (i == fen.length()) {
+            return ChessGame.TeamColor.WHITE;
+        }
+        char c = fen.charAt(i);
+        boolean alone = i + 1 == fen.length() || fen.charAt(i + 1) == ' ';
+        if ((c != 'w' && c != 'b') || !alone) {
+            throw new IllegalArgumentException("Bad FEN side to move: " + fen);
+        }
+        return c == 'b' ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+    }
+
+    // index of the field after the one starting at i
+    private static int skipField(String fen, int i) {
+        while (i < fen.length() && fen.charAt(i) != ' ') {
+            i++;
+        }
+        return skipSpaces(fen, i);
+    }
+
+    private static int skipSpaces(String fen, int i) {
+        while (i < fen.length() && fen.charAt(i) == ' ') {
+            i++;
+        }
+        return i;
+    }
+
+    private static ChessPiece piece(char c) {
+        ChessGame.TeamColor color = Character.isUpperCase(c) ? ChessGame.TeamColor.WHITE : ChessGame.TeamColor.BLACK;
+        ChessPiece.PieceType type = switch (Character.toLowerCase(c)) {
+            case 'k' -> ChessPiece.PieceType.KING;
+            case 'q' -> ChessPiece.PieceType.QUEEN;
+            case 'r' -> ChessPiece.PieceType.ROOK;
+            case 'b' -> ChessPiece.PieceType.BISHOP;
+            case 'n' -> ChessPiece.PieceType.KNIGHT;
+            case 'p' -> ChessPiece.PieceType.PAWN;
+            default -> throw new IllegalArgumentException("Bad FEN piece: " + c);
+        };
+        return ChessPiece.of(color, type);
+    }
+}
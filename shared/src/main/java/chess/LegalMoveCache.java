@@ -0,0 +1,149 @@
+package chess;
+
+import chess.pieces.LegalMoves;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * A fixed-size cache of the legal moves of whole positions, keyed by
+ * {@link ChessGame#getZobristKey()}. One cache can be shared by any number of games and
+ * threads.
+ * <p>
+ * The table is direct mapped: a position has exactly one slot, and storing a position
+ * replaces whatever was in its slot before, so memory use never grows past the capacity.
+ * Entries are immutable and found by comparing the full key, so readers take no lock.
+ * Two threads racing on a miss just compute the same entry twice.
+ */
+public final class LegalMoveCache {
+
+    /**
+     * The legal moves of the side to move, grouped by start square
+     */
+    public static final class Entry {
+        private final long key;
+        private final ChessMove[] moves;
+        // moves of the piece on square s are moves[start[s]] up to moves[start[s + 1]]
+        private final int[] start;
+
+        private Entry(long key, ChessMove[] moves, int[] start) {
+            this.key = key;
+            this.moves = moves;
+            this.start = start;
+        }
+
+        public long key() {
+            return key;
+        }
+
+        /**
+         * @return the legal moves of the piece on square, as a new list the caller may change
+         */
+        public Collection<ChessMove> moves(int square) {
+            Collection<ChessMove> out = new ArrayList<>(start[square + 1] - start[square]);
+            for (int i = start[square]; i < start[square + 1]; i++) {
+                out.add(moves[i]);
+            }
+            return out;
+        }
+
+        public boolean contains(ChessMove move) {
+            int from = Bitboards.square(move.getStartPosition());
+            for (int i = start[from]; i < start[from + 1]; i++) {
+                if (moves[i].equals(move)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private final Entry[] table;
+    private final int mask;
+
+    /**
+     * @param capacity number of slots, rounded up to a power of two
+     */
+    public LegalMoveCache(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        this.table = new Entry[size];
+        this.mask = size - 1;
+    }
+
+    public int capacity() {
+        return table.length;
+    }
+
+    /**
+     * @return the entry for the game's current position, computing and storing it on a miss
+     */
+    public Entry get(ChessGame game) {
+        long key = game.getZobristKey();
+        Entry entry = peek(key);
+        if (entry == null) {
+            entry = compute(key, game.getBoard(), game.getTeamTurn());
+            table[slot(key)] = entry;
+        }
+        return entry;
+    }
+
+    /**
+     * @return the entry stored for key, or null without computing anything
+     */
+    public Entry peek(long key) {
+        Entry entry = table[slot(key)];
+        return entry != null && entry.key == key ? entry : null;
+    }
+
+    /**
+     * Same result as {@link ChessGame#validMoves(ChessPosition)}, served from the cache when
+     * the piece belongs to the side to move
+     */
+    public Collection<ChessMove> validMoves(ChessGame game, ChessPosition position) {
+        ChessPiece piece = game.getBoard().getPiece(position);
+        if (piece == null) {
+            return null;
+        }
+        if (piece.getTeamColor() != game.getTeamTurn()) {
+            return game.validMoves(position);
+        }
+        return get(game).moves(Bitboards.square(position));
+    }
+
+    public void clear() {
+        Arrays.fill(table, null);
+    }
+
+    private int slot(long key) {
+        // the low bits of a Zobrist key are as random as the high ones
+        return (int) key & mask;
+    }
+
+    private static Entry compute(long key, ChessBoard board, ChessGame.TeamColor toMove) {
+        MoveList generated = new MoveList();
+        LegalMoves.generate(board, toMove, generated);
+
+        // counting sort by start square so each piece's moves sit together
+        int[] start = new int[65];
+        for (int i = 0; i < generated.size(); i++) {
+            start[Moves.from(generated.get(i)) + 1]++;
+        }
+        for (int square = 0; square < 64; square++) {
+            start[square + 1] += start[square];
+        }
+        int[] next = Arrays.copyOf(start, 64);
+        ChessMove[] moves = new ChessMove[generated.size()];
+        for (int i = 0; i < generated.size(); i++) {
+            int move = generated.get(i);
+            moves[next[Moves.from(move)]++] = Moves.toChessMove(move);
+        }
+        return new Entry(key, moves, start);
+    }
+}
@@ -0,0 +1,71 @@
+package chess;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Growable buffer of moves packed with {@link Moves}. Generators append to it and callers
+ * clear and reuse it, so generating moves does not allocate once the buffer has grown.
+ */
+public class MoveList {
+
+    private int[] moves;
+    private int size;
+
+    public MoveList() {
+        this(64);
+    }
+
+    public MoveList(int capacity) {
+        moves = new int[capacity];
+    }
+
+    public void add(int move) {
+        if (size == moves.length) {
+            moves = Arrays.copyOf(moves, size * 2);
+        }
+        moves[size++] = move;
+    }
+
+    public int get(int index) {
+        return moves[index];
+    }
+
+    public void set(int index, int move) {
+        moves[index] = move;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    // drops everything after the first newSize moves
+    public void truncate(int newSize) {
+        size = newSize;
+    }
+
+    public boolean contains(int move) {
+        for (int i = 0; i < size; i++) {
+            if (moves[i] == move) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // turns the packed moves into ChessMoves, only done at the public API boundary
+    public <C extends Collection<ChessMove>> C toChessMoves(C out) {
+        for (int i = 0; i < size; i++) {
+            out.add(Moves.toChessMove(moves[i]));
+        }
+        return out;
+    }
+}
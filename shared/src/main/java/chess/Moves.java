@@ -0,0 +1,49 @@
+package chess;
+
+/**
+ * Packs a move into a single int so move generation does not need a
+ * {@link ChessMove} and two {@link ChessPosition}s per candidate.
+ * <p>
+ * Bits 0-5 hold the start square, bits 6-11 the end square (see {@link Bitboards})
+ * and bits 12-14 the promotion piece as its ordinal plus one, or 0 for no promotion.
+ */
+public final class Moves {
+
+    private static final ChessPiece.PieceType[] TYPES = ChessPiece.PieceType.values();
+
+    private Moves() { }
+
+    public static int encode(int from, int to, ChessPiece.PieceType promotion) {
+        return from | to << 6 | (promotion == null ? 0 : promotion.ordinal() + 1) << 12;
+    }
+
+    public static int encode(int from, int to) {
+        return from | to << 6;
+    }
+
+    public static int encode(ChessMove move) {
+        return encode(Bitboards.square(move.getStartPosition()), Bitboards.square(move.getEndPosition()),
+                move.getPromotionPiece());
+    }
+
+    public static int from(int move) {
+        return move & 63;
+    }
+
+    public static int to(int move) {
+        return (move >>> 6) & 63;
+    }
+
+    public static boolean isPromotion(int move) {
+        return (move >>> 12 & 7) != 0;
+    }
+
+    public static ChessPiece.PieceType promotion(int move) {
+        int code = move >>> 12 & 7;
+        return code == 0 ? null : TYPES[code - 1];
+    }
+
+    public static ChessMove toChessMove(int move) {
+        return ChessMove.of(move);
+    }
+}
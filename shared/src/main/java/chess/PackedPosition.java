@@ -0,0 +1,132 @@
+package chess;
+
+/**
+ * Fixed-size binary encoding of a position, {@value #SIZE} bytes for any legal board.
+ * <ul>
+ *     <li>bytes 0-7: occupancy mask, big-endian, bit n set when square n (see {@link Bitboards}) has a piece</li>
+ *     <li>bytes 8-23: one nibble per occupied square in ascending square order, low nibble first,
+ *     holding {@link Bitboards#pieceIndex(ChessPiece)}. Unused nibbles are zero</li>
+ *     <li>byte 24: flags, bit 0 black to move, bit 1 game over, bits 2-3 the winner
+ *     (0 none, 1 white, 2 black)</li>
+ *     <li>byte 25: the halfmove clock, capped at 255</li>
+ * </ul>
+ * Boards encode with the last two bytes zero. The move history is not included. More than 32 pieces cannot be encoded.
+ */
+public final class PackedPosition {
+
+    public static final int SIZE = 26;
+
+    private static final int MAX_PIECES = 32;
+    private static final int PIECES = 8;
+    private static final int FLAGS = 24;
+    private static final int CLOCK = 25;
+
+    private static final int BLACK_TO_MOVE = 1;
+    private static final int GAME_OVER = 2;
+    private static final int WINNER_SHIFT = 2;
+
+    private static final ChessGame.TeamColor[] COLORS = ChessGame.TeamColor.values();
+
+    private PackedPosition() { }
+
+    public static byte[] encode(ChessBoard board) {
+        byte[] out = new byte[SIZE];
+        long occupied = board.occupied();
+        if (Long.bitCount(occupied) > MAX_PIECES) {
+            throw new IllegalArgumentException("Too many pieces to encode: " + Long.bitCount(occupied));
+        }
+        for (int i = 0; i < 8; i++) {
+            out[i] = (byte) (occupied >>> (56 - 8 * i));
+        }
+        int nibble = 0;
+        while (occupied != 0) {
+            int square = Long.numberOfTrailingZeros(occupied);
+            occupied &= occupied - 1;
+            int index = Bitboards.pieceIndex(board.getPiece(square));
+            out[PIECES + (nibble >> 1)] |= (byte) (index << ((nibble & 1) * 4));
+            nibble++;
+        }
+        return out;
+    }
+
+    public static byte[] encode(ChessGame game) {
+        byte[] out = encode(game.getBoard());
+        int flags = 0;
+        if (game.getTeamTurn() == ChessGame.TeamColor.BLACK) {
+            flags |= BLACK_TO_MOVE;
+        }
+        if (game.isGameOver()) {
+            flags |= GAME_OVER;
+        }
+        if (game.getWinner() != null) {
+            flags |= (game.getWinner().ordinal() + 1) << WINNER_SHIFT;
+        }
+        out[FLAGS] = (byte) flags;
+        out[CLOCK] = (byte) Math.min(game.getHalfmoveClock(), 255);
+        return out;
+    }
+
+    public static ChessBoard decodeBoard(byte[] bytes) {
+        ChessBoard board = new ChessBoard();
+        fill(bytes, board);
+        return board;
+    }
+
+    /**
+     * Decodes the board and side to move into an existing board, which is cleared first. For
+     * decoding many positions into one scratch board.
+     *
+     * @return the side to move
+     */
+    public static ChessGame.TeamColor decodeInto(byte[] bytes, ChessBoard board) {
+        board.clear();
+        fill(bytes, board);
+        return (bytes[FLAGS] & BLACK_TO_MOVE) != 0 ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+    }
+
+    private static void fill(byte[] bytes, ChessBoard board) {
+        if (bytes.length != SIZE) {
+            throw new IllegalArgumentException("Packed position must be " + SIZE + " bytes, got " + bytes.length);
+        }
+        long occupied = 0;
+        for (int i = 0; i < 8; i++) {
+            occupied = (occupied << 8) | (bytes[i] & 0xFF);
+        }
+        if (Long.bitCount(occupied) > MAX_PIECES) {
+            throw new IllegalArgumentException("Packed position has too many pieces");
+        }
+
+        int nibble = 0;
+        while (occupied != 0) {
+            int square = Long.numberOfTrailingZeros(occupied);
+            occupied &= occupied - 1;
+            int index = (bytes[PIECES + (nibble >> 1)] >> ((nibble & 1) * 4)) & 0xF;
+            if (index >= 12) {
+                throw new IllegalArgumentException("Packed position has a bad piece: " + index);
+            }
+            board.addPiece(Bitboards.position(square), Bitboards.piece(index));
+            nibble++;
+        }
+    }
+
+    public static ChessGame decode(byte[] bytes) {
+        ChessBoard board = decodeBoard(bytes);
+        int flags = bytes[FLAGS] & 0xFF;
+        int winner = (flags >> WINNER_SHIFT) & 3;
+        if ((flags & ~0xF) != 0 || winner == 3) {
+            throw new IllegalArgumentException("Packed position has bad flags: " + flags);
+        }
+
+        ChessGame game = new ChessGame();
+        game.setBoard(board);
+        if ((flags & BLACK_TO_MOVE) != 0) {
+            game.setTeamTurn(ChessGame.TeamColor.BLACK);
+        }
+        game.setGameOver((flags & GAME_OVER) != 0);
+        if (winner != 0) {
+            game.setWinner(COLORS[winner - 1]);
+        }
+        game.setHalfmoveClock(bytes[CLOCK] & 0xFF);
+        return game;
+    }
+}
@@ -0,0 +1,214 @@
+package chess;
+
+import chess.pieces.LegalMoves;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Counts the leaf nodes of the legal move tree to a fixed depth ("perft"). Comparing the
+ * counts with published numbers is the standard way to prove move generation correct, and
+ * timing them gives a throughput figure for the generator.
+ * <p>
+ * Moves are played with {@link ChessBoard#makeMove(int, int, ChessPiece.PieceType)} and
+ * taken back with {@link ChessBoard#unmakeMove()} on a private copy of the board, so the
+ * game passed in is never changed.
+ */
+public final class Perft {
+
+    /**
+     * A reference position and its known node counts, nodes[d - 1] being the count at depth d.
+     */
+    public record Position(String name, String fen, long... nodes) {
+        public int maxDepth() {
+            return nodes.length;
+        }
+    }
+
+    public record Result(long nodes, long nanos) {
+        public double nodesPerSecond() {
+            return nanos == 0 ? 0 : nodes * 1_000_000_000.0 / nanos;
+        }
+    }
+
+    /**
+     * Published positions whose counts do not depend on castling or en passant, which this
+     * game does not have. The start position stops at depth 4 because the first en passant
+     * captures appear at depth 5.
+     */
+    public static final List<Position> REFERENCE = List.of(
+            new Position("start", "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w - - 0 1",
+                    20, 400, 8902, 197281),
+            new Position("promotions", "n1n5/PPPk4/8/8/8/8/4Kppp/5N1N b - - 0 1",
+                    24, 496, 9483, 182838, 3605103),
+            new Position("discovered check", "8/8/1P2K3/8/2n5/1q6/8/5k2 b - - 0 1",
+                    29, 165, 5160, 31961, 1004658),
+            new Position("promote out of check", "2K2r2/4P3/8/8/8/8/8/3k4 w - - 0 1",
+                    11, 133, 1442, 19174, 266199, 3821001),
+            new Position("promote to give check", "4k3/1P6/8/8/8/8/K7/8 w - - 0 1",
+                    9, 40, 472, 2661, 38983, 217342),
+            new Position("underpromote to check", "8/P1k5/K7/8/8/8/8/8 w - - 0 1",
+                    6, 27, 273, 1329, 18135, 92683),
+            new Position("self stalemate", "K1k5/8/P7/8/8/8/8/8 w - - 0 1",
+                    2, 6, 13, 63, 382, 2217),
+            new Position("stalemate and checkmate", "8/k1P5/8/1K6/8/8/8/8 w - - 0 1",
+                    10, 25, 268, 926, 10857, 43261, 567584),
+            new Position("double check", "8/8/2k5/5q2/5n2/8/5K2/8 b - - 0 1",
+                    37, 183, 6559, 23527)
+    );
+
+    private Perft() { }
+
+    /**
+     * @return the number of leaf nodes depth plies below the game's current position
+     */
+    public static long perft(ChessGame game, int depth) {
+        return count(new ChessBoard(game.getBoard()), game.getTeamTurn(), depth, buffers(depth));
+    }
+
+    /**
+     * Same count as {@link #perft(ChessGame, int)}, with the root moves split across the pool.
+     * Each task works on its own copy of the board.
+     */
+    public static long perftParallel(ChessGame game, int depth, ForkJoinPool pool) {
+        if (depth <= 1) {
+            return perft(game, depth);
+        }
+        return pool.invoke(new RootTask(game.getBoard(), game.getTeamTurn(), depth));
+    }
+
+    /**
+     * @return the node count below each root move, in generation order. Useful for finding
+     * which move a wrong total comes from
+     */
+    public static Map<ChessMove, Long> divide(ChessGame game, int depth) {
+        ChessBoard board = new ChessBoard(game.getBoard());
+        ChessGame.TeamColor color = game.getTeamTurn();
+        MoveList[] buffers = buffers(depth);
+        MoveList root = new MoveList();
+        LegalMoves.generate(board, color, root);
+
+        Map<ChessMove, Long> counts = new LinkedHashMap<>();
+        for (int i = 0; i < root.size(); i++) {
+            int move = root.get(i);
+            board.makeMove(Moves.from(move), Moves.to(move), Moves.promotion(move));
+            counts.put(Moves.toChessMove(move), count(board, opponent(color), depth - 1, buffers));
+            board.unmakeMove();
+        }
+        return counts;
+    }
+
+    public static Result run(Position position, int depth, ForkJoinPool pool) {
+        ChessGame game = Fen.read(position.fen());
+        long start = System.nanoTime();
+        long nodes = pool == null ? perft(game, depth) : perftParallel(game, depth, pool);
+        return new Result(nodes, System.nanoTime() - start);
+    }
+
+    // runs the reference suite to full depth and prints counts and speed, single threaded then parallel
+    public static void main(String[] args) {
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        List<String> failures = new ArrayList<>();
+        for (ForkJoinPool mode : new ForkJoinPool[]{null, pool}) {
+            System.out.printf("%s%n", mode == null ? "single thread" : "fork/join, parallelism " + pool.getParallelism());
+            long totalNodes = 0;
+            long totalNanos = 0;
+            for (Position position : REFERENCE) {
+                int depth = position.maxDepth();
+                Result result = run(position, depth, mode);
+                long expected = position.nodes()[depth - 1];
+                boolean ok = result.nodes() == expected;
+                if (!ok) {
+                    failures.add(position.name() + " depth " + depth + ": " + result.nodes() + " != " + expected);
+                }
+                totalNodes += result.nodes();
+                totalNanos += result.nanos();
+                System.out.printf("  %-24s depth %d  %,12d nodes  %,14.0f nps  %s%n",
+                        position.name(), depth, result.nodes(), result.nodesPerSecond(), ok ? "ok" : "WRONG");
+            }
+            System.out.printf("  total %,d nodes  %,.0f nps%n", totalNodes, new Result(totalNodes, totalNanos).nodesPerSecond());
+        }
+        if (!failures.isEmpty()) {
+            failures.forEach(System.out::println);
+            System.exit(1);
+        }
+    }
+
+    private static long count(ChessBoard board, ChessGame.TeamColor color, int depth, MoveList[] buffers) {
+        if (depth == 0) {
+            return 1;
+        }
+        MoveList moves = buffers[depth];
+        moves.clear();
+        LegalMoves.generate(board, color, moves);
+        if (depth == 1) {
+            return moves.size();
+        }
+
+        long nodes = 0;
+        ChessGame.TeamColor next = opponent(color);
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            board.makeMove(Moves.from(move), Moves.to(move), Moves.promotion(move));
+            nodes += count(board, next, depth - 1, buffers);
+            board.unmakeMove();
+        }
+        return nodes;
+    }
+
+    // one buffer per remaining depth so a level's moves survive the recursion below it
+    private static MoveList[] buffers(int depth) {
+        MoveList[] buffers = new MoveList[depth + 1];
+        for (int i = 0; i <= depth; i++) {
+            buffers[i] = new MoveList();
+        }
+        return buffers;
+    }
+
+    private static ChessGame.TeamColor opponent(ChessGame.TeamColor color) {
+        return color == ChessGame.TeamColor.WHITE ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+    }
+
+    private static class RootTask extends RecursiveTask<Long> {
+        private final ChessBoard board;
+        private final ChessGame.TeamColor color;
+        private final int depth;
+        private final int move;
+
+        RootTask(ChessBoard board, ChessGame.TeamColor color, int depth) {
+            this(board, color, depth, -1);
+        }
+
+        private RootTask(ChessBoard board, ChessGame.TeamColor color, int depth, int move) {
+            this.board = board;
+            this.color = color;
+            this.depth = depth;
+            this.move = move;
+        }
+
+        @Override
+        protected Long compute() {
+            ChessBoard own = new ChessBoard(board);
+            if (move >= 0) {
+                own.makeMove(Moves.from(move), Moves.to(move), Moves.promotion(move));
+                return count(own, opponent(color), depth - 1, buffers(depth - 1));
+            }
+
+            MoveList root = new MoveList();
+            LegalMoves.generate(own, color, root);
+            List<RootTask> tasks = new ArrayList<>(root.size());
+            for (int i = 0; i < root.size(); i++) {
+                tasks.add(new RootTask(own, color, depth, root.get(i)));
+            }
+            long nodes = 0;
+            for (RootTask task : invokeAll(tasks)) {
+                nodes += task.join();
+            }
+            return nodes;
+        }
+    }
+}
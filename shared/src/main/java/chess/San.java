@@ -0,0 +1,108 @@
+package chess;
+
+/**
+ * Reads moves in Standard Algebraic Notation as used in PGN files, e.g. {@code e4},
+ * {@code Nbd7}, {@code exd5}, {@code R1e2+} or {@code e8=Q#}.
+ * <p>
+ * Check and annotation marks are ignored. This game has no castling or en passant, so
+ * {@code O-O}, {@code O-O-O} and pawn captures onto an empty square are rejected like any
+ * other move that is not legal in the position.
+ */
+public final class San {
+
+    private San() { }
+
+    /**
+     * @return the legal move of the side to move that san names
+     * @throws IllegalArgumentException if san names no legal move, or more than one
+     */
+    public static ChessMove read(ChessGame game, String san) {
+        int end = san.length();
+        while (end > 0 && "+#!?".indexOf(san.charAt(end - 1)) >= 0) {
+            end--;
+        }
+        if (end < 2) {
+            throw new IllegalArgumentException("Bad SAN move: " + san);
+        }
+
+        ChessPiece.PieceType promotion = null;
+        if (san.charAt(end - 2) == '=') {
+            promotion = type(san.charAt(end - 1), san);
+            end -= 2;
+        }
+        int start = 0;
+        ChessPiece.PieceType type = ChessPiece.PieceType.PAWN;
+        if (Character.isUpperCase(san.charAt(0))) {
+            type = type(san.charAt(0), san);
+            start = 1;
+        }
+        if (end - start < 2) {
+            throw new IllegalArgumentException("Bad SAN move: " + san);
+        }
+        int toCol = file(san.charAt(end - 2), san);
+        int toRow = rank(san.charAt(end - 1), san);
+        end -= 2;
+        if (end > start && san.charAt(end - 1) == 'x') {
+            end--;
+        }
+
+        // what is left is the optional file and rank of the moving piece
+        int fromCol = 0;
+        int fromRow = 0;
+        for (int i = start; i < end; i++) {
+            char c = san.charAt(i);
+            if (c >= 'a' && c <= 'h' && fromCol == 0 && fromRow == 0) {
+                fromCol = c - 'a' + 1;
+            } else if (c >= '1' && c <= '8' && fromRow == 0) {
+                fromRow = c - '0';
+            } else {
+                throw new IllegalArgumentException("Bad SAN move: " + san);
+            }
+        }
+
+        ChessMove found = null;
+        ChessPosition to = ChessPosition.of(toRow, toCol);
+        for (ChessMove move : game.allValidMoves(game.getTeamTurn())) {
+            ChessPosition from = move.getStartPosition();
+            if (!move.getEndPosition().equals(to) || move.getPromotionPiece() != promotion
+                    || game.getBoard().getPiece(from).getPieceType() != type
+                    || (fromCol != 0 && from.getColumn() != fromCol)
+                    || (fromRow != 0 && from.getRow() != fromRow)) {
+                continue;
+            }
+            if (found != null) {
+                throw new IllegalArgumentException("Ambiguous SAN move: " + san);
+            }
+            found = move;
+        }
+        if (found == null) {
+            throw new IllegalArgumentException("No legal move matches SAN: " + san);
+        }
+        return found;
+    }
+
+    private static int file(char c, String san) {
+        if (c < 'a' || c > 'h') {
+            throw new IllegalArgumentException("Bad SAN move: " + san);
+        }
+        return c - 'a' + 1;
+    }
+
+    private static int rank(char c, String san) {
+        if (c < '1' || c > '8') {
+            throw new IllegalArgumentException("Bad SAN move: " + san);
+        }
+        return c - '0';
+    }
+
+    private static ChessPiece.PieceType type(char c, String san) {
+        return switch (c) {
+            case 'K' -> ChessPiece.PieceType.KING;
+            case 'Q' -> ChessPiece.PieceType.QUEEN;
+            case 'R' -> ChessPiece.PieceType.ROOK;
+            case 'B' -> ChessPiece.PieceType.BISHOP;
+            case 'N' -> ChessPiece.PieceType.KNIGHT;
+            default -> throw new IllegalArgumentException("Bad SAN move: " + san);
+        };
+    }
+}
@@ -0,0 +1,39 @@
+package chess;
+
+import java.util.SplittableRandom;
+
+/**
+ * Random keys for Zobrist hashing. A position's key is the xor of the key of every piece on
+ * its square, plus {@link #BLACK_TO_MOVE} when it is black's turn, so it can be updated with
+ * one xor per piece that appears or disappears.
+ * <p>
+ * The keys come from a fixed seed so the same position hashes the same in every process.
+ */
+public final class Zobrist {
+
+    public static final long BLACK_TO_MOVE;
+
+    private static final long[] PIECE_SQUARE = new long[12 * 64];
+
+    static {
+        SplittableRandom random = new SplittableRandom(0x5EED_C4E55L);
+        for (int i = 0; i < PIECE_SQUARE.length; i++) {
+            PIECE_SQUARE[i] = random.nextLong();
+        }
+        BLACK_TO_MOVE = random.nextLong();
+    }
+
+    private Zobrist() { }
+
+    public static long piece(int pieceIndex, int square) {
+        return PIECE_SQUARE[pieceIndex << 6 | square];
+    }
+
+    public static long piece(ChessPiece piece, int square) {
+        return piece(Bitboards.pieceIndex(piece), square);
+    }
+
+    public static long side(ChessGame.TeamColor toMove) {
+        return toMove == ChessGame.TeamColor.BLACK ? BLACK_TO_MOVE : 0;
+    }
+}
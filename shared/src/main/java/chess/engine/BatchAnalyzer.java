@@ -0,0 +1,153 @@
+package chess.engine;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPiece;
+import chess.Fen;
+import chess.MoveList;
+import chess.PackedPosition;
+import chess.pieces.Attacks;
+import chess.pieces.LegalMoves;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.stream.Stream;
+
+/**
+ * Analyses many positions at once on a fork/join pool: the number of legal moves, whether
+ * the side to move is in check, and a score, either the static evaluation or that of a
+ * fixed-depth search along with its best move.
+ * <p>
+ * The positions are split into chunks that run as separate tasks. Each worker thread keeps
+ * its own scratch board, move list and search, reused for every position it is handed, so
+ * a batch allocates little beyond its results. These are shared by all analyzers and kept
+ * for the life of the thread, which after a search includes a 1 MB transposition table.
+ * Results come back in input order, each chunk
+ * as soon as it and all the chunks before it are done. A position that cannot be decoded
+ * gives a result with an error instead of failing the batch.
+ */
+public final class BatchAnalyzer {
+
+    /**
+     * @param index the position's place in the input
+     * @param error why the position could not be read, or null
+     * @param score centipawns for the side to move, {@link Search#MATE} scores for mates
+     * @param bestMove the search's move, null when only evaluating or without legal moves
+     */
+    public record Analysis(int index, String error, int legalMoves, boolean inCheck, int score, ChessMove bestMove) {
+
+        public boolean isCheckmate() {
+            return error == null && legalMoves == 0 && inCheck;
+        }
+
+        public boolean isStalemate() {
+            return error == null && legalMoves == 0 && !inCheck;
+        }
+    }
+
+    private static final int CHUNK = 64;
+
+    private final ForkJoinPool pool;
+    private final int depth;
+    // shared by every analyzer, so a pool thread holds at most one worker however many analyzers
+    // run on it. the worker, with its table once a search has run, lives as long as the thread
+    private static final ThreadLocal<Worker> WORKERS = ThreadLocal.withInitial(Worker::new);
+
+    /**
+     * Analyses on the common pool
+     */
+    public BatchAnalyzer(int depth) {
+        this(ForkJoinPool.commonPool(), depth);
+    }
+
+    /**
+     * @param depth plies to search each position, or 0 for the static evaluation only
+     */
+    public BatchAnalyzer(ForkJoinPool pool, int depth) {
+        if (depth < 0) {
+            throw new IllegalArgumentException("Depth must not be negative: " + depth);
+        }
+        this.pool = pool;
+        this.depth = depth;
+    }
+
+    /**
+     * Starts analysing positions given in FEN. The work is under way when this returns, and
+     * the stream hands out results in input order as they are ready.
+     */
+    public Stream<Analysis> analyzeFen(List<String> fens) {
+        return start(fens, Fen::readInto);
+    }
+
+    /**
+     * Same as {@link #analyzeFen} for positions in the {@link PackedPosition} encoding
+     */
+    public Stream<Analysis> analyzePacked(List<byte[]> positions) {
+        return start(positions, PackedPosition::decodeInto);
+    }
+
+    private interface Decoder<T> {
+        ChessGame.TeamColor decode(T input, ChessBoard board);
+    }
+
+    private <T> Stream<Analysis> start(List<T> inputs, Decoder<T> decoder) {
+        List<ForkJoinTask<Analysis[]>> chunks = new ArrayList<>();
+        for (int from = 0; from < inputs.size(); from += CHUNK) {
+            int start = from;
+            int end = Math.min(from + CHUNK, inputs.size());
+            chunks.add(pool.submit(() -> {
+                Worker worker = WORKERS.get();
+                Analysis[] results = new Analysis[end - start];
+                for (int i = start; i < end; i++) {
+                    results[i - start] = worker.analyze(i, inputs.get(i), decoder, depth);
+                }
+                return results;
+            }));
+        }
+        return chunks.stream().flatMap(chunk -> Stream.of(chunk.join()));
+    }
+
+    // one per pool thread, never shared
+    private static final class Worker {
+
+        private final ChessBoard board = new ChessBoard();
+        private final MoveList moves = new MoveList();
+        private TranspositionTable table;
+        private Search search;
+
+        <T> Analysis analyze(int index, T input, Decoder<T> decoder, int depth) {
+            ChessGame.TeamColor color;
+            try {
+                color = decoder.decode(input, board);
+            } catch (RuntimeException e) {
+                // malformed input can fail in more ways than the decoders check for, e.g. a null entry
+                return new Analysis(index, e.getMessage() == null ? e.toString() : e.getMessage(), 0, false, 0, null);
+            }
+
+            moves.clear();
+            LegalMoves.generate(board, color, moves);
+            long kings = board.pieces(color, ChessPiece.PieceType.KING);
+            ChessGame.TeamColor opponent = color == ChessGame.TeamColor.WHITE
+                    ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+            boolean inCheck = kings != 0 && Attacks.isSquareAttacked(board, Long.numberOfTrailingZeros(kings), opponent);
+            if (moves.isEmpty()) {
+                return new Analysis(index, null, 0, inCheck, inCheck ? -Search.MATE : 0, null);
+            }
+            if (depth == 0) {
+                return new Analysis(index, null, moves.size(), inCheck, Evaluation.evaluate(board, color), null);
+            }
+
+            if (search == null) {
+                table = new TranspositionTable(1);
+                search = new Search(table);
+            }
+            // nothing from earlier positions, so a result does not depend on what this worker saw before
+            table.forget();
+            SearchResult result = search.run(board, color, SearchLimits.depth(depth));
+            return new Analysis(index, null, moves.size(), inCheck, result.score(), result.bestMove());
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package chess.engine;
+
+import chess.ChessGame;
+import chess.ChessMove;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Entry point for searching a game: owns the transposition table, which is kept between
+ * searches so analysing the same game move after move reuses earlier work, and the helper
+ * threads used when {@link SearchLimits#threads()} is more than one.
+ * <p>
+ * With an {@link OpeningBook} set, positions in the book are answered with the book's most
+ * played move and no search at all. With a {@link Tablebase} set, positions it covers are
+ * answered from the tables, and the search scores any it reaches exactly.
+ * <p>
+ * Searches on one Engine run one at a time. Create an Engine per independent user of the
+ * engine, or share one and accept that searches queue.
+ */
+public final class Engine {
+
+    public static final int DEFAULT_HASH_MB = 16;
+
+    private final TranspositionTable table;
+    private ExecutorService helpers;
+    private OpeningBook book;
+    private Tablebase tablebase;
+
+    public Engine() {
+        this(DEFAULT_HASH_MB);
+    }
+
+    /**
+     * @param hashMegabytes size of the transposition table
+     */
+    public Engine(int hashMegabytes) {
+        this.table = new TranspositionTable(hashMegabytes);
+    }
+
+    /**
+     * @param book consulted before every search, or null for none
+     */
+    public synchronized void setBook(OpeningBook book) {
+        this.book = book;
+    }
+
+    /**
+     * @param tablebase probed before and during every search, or null for none
+     */
+    public synchronized void setTablebase(Tablebase tablebase) {
+        this.tablebase = tablebase;
+    }
+
+    /**
+     * Searches the game's current position for the side to move. The game is not changed.
+     * With more than one thread the main search's move and score are returned, and the
+     * node count is that of all threads together. A book or tablebase move comes back
+     * with depth 0 and no nodes; a book move scores 0.
+     */
+    public synchronized SearchResult search(ChessGame game, SearchLimits limits) {
+        if (book != null) {
+            long start = System.nanoTime();
+            ChessMove move = book.best(game);
+            // two positions can share a key, so the move is only trusted if it is legal here
+            if (move != null && game.isLegal(move)) {
+                return new SearchResult(move, 0, 0, 0, System.nanoTime() - start, List.of(move));
+            }
+        }
+        if (tablebase != null) {
+            long start = System.nanoTime();
+            int entry = tablebase.entry(game.getBoard(), game.getTeamTurn());
+            ChessMove move = entry < 0 ? null : tablebase.bestMove(game.getBoard(), game.getTeamTurn());
+            if (move != null) {
+                return new SearchResult(move, Tablebase.score(entry, 0), 0, 0, System.nanoTime() - start, List.of(move));
+            }
+        }
+        table.newSearch();
+        if (limits.threads() == 1) {
+            Search search = new Search(table);
+            search.setTablebase(tablebase);
+            return search.run(game, limits);
+        }
+
+        AtomicBoolean stop = new AtomicBoolean();
+        AtomicLong nodes = new AtomicLong();
+        List<Future<SearchResult>> running = new ArrayList<>();
+        for (int i = 1; i < limits.threads(); i++) {
+            Search helper = new Search(table, stop, nodes, i);
+            helper.setTablebase(tablebase);
+            running.add(helpers().submit(() -> helper.run(game, limits)));
+        }
+        SearchResult main;
+        try {
+            Search search = new Search(table, stop, nodes, 0);
+            search.setTablebase(tablebase);
+            main = search.run(game, limits);
+        } finally {
+            // the helpers only stop on a limit or when told to, and the main search is the one that counts
+            stop.set(true);
+        }
+
+        long total = main.nodes();
+        for (Future<SearchResult> future : running) {
+            try {
+                total += future.get().nodes();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted waiting for search threads", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Search thread failed", e.getCause());
+            }
+        }
+        return new SearchResult(main.bestMove(), main.score(), main.depth(), total, main.nanos(),
+                main.principalVariation());
+    }
+
+    /**
+     * @return the move the engine would play, or null if the side to move has none
+     */
+    public ChessMove bestMove(ChessGame game, SearchLimits limits) {
+        return search(game, limits).bestMove();
+    }
+
+    /**
+     * Forgets everything learned in earlier searches
+     */
+    public synchronized void clear() {
+        table.clear();
+    }
+
+    /**
+     * Stops the helper threads. The engine can still search afterwards and starts new ones
+     * if needed.
+     */
+    public synchronized void close() {
+        if (helpers != null) {
+            helpers.shutdown();
+            helpers = null;
+        }
+    }
+
+    // daemon threads so an engine that is never closed does not keep the JVM alive
+    private ExecutorService helpers() {
+        if (helpers == null) {
+            helpers = Executors.newCachedThreadPool(task -> {
+                Thread thread = new Thread(task, "search-helper");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return helpers;
+    }
+}
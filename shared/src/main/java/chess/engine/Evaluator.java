@@ -0,0 +1,121 @@
+package chess.engine;
+
+import chess.Bitboards;
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessPiece;
+import chess.Moves;
+
+import java.util.Arrays;
+
+/**
+ * Plays moves on a board while keeping its {@link Evaluation} score up to date, so a score
+ * costs a few array reads per move instead of a scan of the board.
+ * <p>
+ * The middlegame score, endgame score and phase are kept on a stack with one entry per move
+ * played: a move adds the difference it makes to the entry below, and unmaking it just pops
+ * the stack. The board must only be changed through this class between {@link #reset} calls.
+ * Not thread safe.
+ */
+public final class Evaluator {
+
+    private ChessBoard board;
+    private int[] middlegame = new int[Search.MAX_PLY + 2];
+    private int[] endgame = new int[Search.MAX_PLY + 2];
+    private int[] phase = new int[Search.MAX_PLY + 2];
+    private int top;
+
+    /**
+     * Starts following board, scoring it from scratch
+     */
+    public void reset(ChessBoard board) {
+        this.board = board;
+        top = 0;
+        int[] score = recompute();
+        middlegame[0] = score[0];
+        endgame[0] = score[1];
+        phase[0] = score[2];
+    }
+
+    /**
+     * Plays a packed move (see {@link Moves}) on the board
+     *
+     * @return the piece captured, or null
+     */
+    public ChessPiece makeMove(int move) {
+        int from = Moves.from(move);
+        int to = Moves.to(move);
+        ChessPiece.PieceType promotion = Moves.promotion(move);
+        int moved = Bitboards.pieceIndex(board.getPiece(from));
+        int placed = promotion == null ? moved : moved - ChessPiece.PieceType.PAWN.ordinal() + promotion.ordinal();
+        ChessPiece captured = board.makeMove(from, to, promotion);
+
+        int middle = middlegame[top] - Evaluation.MIDDLEGAME[moved][from] + Evaluation.MIDDLEGAME[placed][to];
+        int end = endgame[top] - Evaluation.ENDGAME[moved][from] + Evaluation.ENDGAME[placed][to];
+        int gamePhase = phase[top] - Evaluation.PHASE[moved] + Evaluation.PHASE[placed];
+        if (captured != null) {
+            int victim = Bitboards.pieceIndex(captured);
+            middle -= Evaluation.MIDDLEGAME[victim][to];
+            end -= Evaluation.ENDGAME[victim][to];
+            gamePhase -= Evaluation.PHASE[victim];
+        }
+        if (++top == middlegame.length) {
+            grow();
+        }
+        middlegame[top] = middle;
+        endgame[top] = end;
+        phase[top] = gamePhase;
+        return captured;
+    }
+
+    public void unmakeMove() {
+        if (top == 0) {
+            throw new IllegalStateException("No move to unmake");
+        }
+        board.unmakeMove();
+        top--;
+    }
+
+    /**
+     * @return the board's score in centipawns for the side to move
+     */
+    public int evaluate(ChessGame.TeamColor toMove) {
+        return Evaluation.blend(middlegame[top], endgame[top], phase[top], toMove);
+    }
+
+    /**
+     * Checks the kept score against one computed from scratch. For tests and debugging; the
+     * search never calls it.
+     *
+     * @throws IllegalStateException if they differ
+     */
+    public void verify() {
+        int[] score = recompute();
+        if (score[0] != middlegame[top] || score[1] != endgame[top] || score[2] != phase[top]) {
+            throw new IllegalStateException("Evaluation out of step with the board after " + top + " moves: kept "
+                    + middlegame[top] + "/" + endgame[top] + "/" + phase[top]
+                    + ", board " + score[0] + "/" + score[1] + "/" + score[2]);
+        }
+    }
+
+    // {middlegame, endgame, phase} of the whole board
+    private int[] recompute() {
+        int[] score = new int[3];
+        long occupied = board.occupied();
+        while (occupied != 0) {
+            int square = Long.numberOfTrailingZeros(occupied);
+            occupied &= occupied - 1;
+            int piece = Bitboards.pieceIndex(board.getPiece(square));
+            score[0] += Evaluation.MIDDLEGAME[piece][square];
+            score[1] += Evaluation.ENDGAME[piece][square];
+            score[2] += Evaluation.PHASE[piece];
+        }
+        return score;
+    }
+
+    private void grow() {
+        middlegame = Arrays.copyOf(middlegame, middlegame.length * 2);
+        endgame = Arrays.copyOf(endgame, endgame.length * 2);
+        phase = Arrays.copyOf(phase, phase.length * 2);
+    }
+}
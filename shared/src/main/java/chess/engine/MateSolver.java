@@ -0,0 +1,330 @@
+package chess.engine;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPiece;
+import chess.MoveList;
+import chess.Moves;
+import chess.Zobrist;
+import chess.pieces.Attacks;
+import chess.pieces.LegalMoves;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Finds forced mates with depth-first proof-number search. Where an alpha-beta search
+ * looks at every reply to the same depth, this one keeps for every position a proof
+ * number (how many leaves still have to be shown to be mates) and a disproof number, and
+ * always works on the most promising line, so narrow forcing lines are solved first.
+ * <p>
+ * Positions are stored in a fixed-size table together with the number of plies left, so
+ * a position reached with a different number of moves to spare is a different node and the
+ * search cannot go round in circles. {@link #solve} tries mate in 1, then in 2 and so on,
+ * so the first mate found is the shortest. The last move of a mate must give check, and
+ * only checking moves are tried there.
+ * <p>
+ * Not thread safe, except {@link #cancel}.
+ */
+public final class MateSolver {
+
+    public enum Status {
+        /** the side to move mates in {@link Result#moves()} moves */
+        MATE,
+        /** there is no mate within the moves asked for */
+        NO_MATE,
+        /** the node limit was reached or the solve was cancelled */
+        UNKNOWN
+    }
+
+    /**
+     * @param line the mating line, attacker's and defender's moves alternating, empty without a mate
+     */
+    public record Result(Status status, int moves, List<ChessMove> line, long nodes, long nanos) { }
+
+    private static final int INFINITY = 100_000_000;
+    // nodes between looks at the cancel flag
+    private static final int CHECK_INTERVAL = 1024;
+    // mixed into the key so the same position with a different number of plies left is a different node
+    private static final long PLIES_MIX = 0x9E3779B97F4A7C15L;
+
+    private final long[] keys;
+    private final int[] proofs;
+    private final int[] disproofs;
+    private final int mask;
+
+    // per ply: the moves of the node and their numbers from the mover's side
+    private MoveList[] moves = new MoveList[0];
+    private int[][] childPhi = new int[0][];
+    private int[][] childDelta = new int[0][];
+    // for hasLegalMove on boards that do not have one king per side
+    private final MoveList scratch = new MoveList();
+
+    private ChessBoard board;
+    private ChessGame.TeamColor attacker;
+    private long nodes;
+    private long nodeLimit;
+    private boolean stopped;
+    private volatile boolean cancelled;
+
+    public MateSolver() {
+        this(16);
+    }
+
+    /**
+     * @param megabytes size of the node table, rounded down to a power of two number of entries
+     */
+    public MateSolver(int megabytes) {
+        if (megabytes < 1) {
+            throw new IllegalArgumentException("Table size must be at least 1 MB: " + megabytes);
+        }
+        long entries = Long.highestOneBit(megabytes * (1L << 20) / 16);
+        entries = Math.min(entries, 1L << 30);
+        keys = new long[(int) entries];
+        proofs = new int[(int) entries];
+        disproofs = new int[(int) entries];
+        mask = (int) entries - 1;
+    }
+
+    public Result solve(ChessGame game, int maxMoves) {
+        return solve(game, maxMoves, 0);
+    }
+
+    /**
+     * Looks for a mate by the side to move in at most maxMoves of its moves
+     *
+     * @param nodeLimit nodes to give up after, 0 for no limit
+     */
+    public Result solve(ChessGame game, int maxMoves, long nodeLimit) {
+        if (maxMoves < 1) {
+            throw new IllegalArgumentException("Moves must be at least 1: " + maxMoves);
+        }
+        long start = System.nanoTime();
+        board = new ChessBoard(game.getBoard());
+        attacker = game.getTeamTurn();
+        nodes = 0;
+        this.nodeLimit = nodeLimit;
+        stopped = false;
+        cancelled = false;
+        ensurePlies(2 * maxMoves);
+
+        for (int n = 1; n <= maxMoves; n++) {
+            long numbers = search(0, 2 * n - 1, attacker, INFINITY, INFINITY);
+            if (stopped) {
+                break;
+            }
+            if (phi(numbers) == 0) {
+                // the line is walked in full even if the node limit is used up
+                this.nodeLimit = 0;
+                return new Result(Status.MATE, n, line(2 * n - 1), nodes, System.nanoTime() - start);
+            }
+        }
+        return new Result(stopped ? Status.UNKNOWN : Status.NO_MATE, 0, List.of(), nodes, System.nanoTime() - start);
+    }
+
+    /**
+     * Stops the solve in progress, which then returns {@link Status#UNKNOWN}. Can be called
+     * from any thread.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Forgets all solved positions
+     */
+    public void clear() {
+        Arrays.fill(keys, 0);
+    }
+
+    /*
+     * Numbers are from the side to move: phi is what it still needs to prove its goal (the
+     * attacker's goal is mate, the defender's is escaping it) and delta what the other side
+     * needs. The node is searched until phi reaches thresholdPhi or delta thresholdDelta, and
+     * returns the two packed in a long.
+     */
+    private long search(int ply, int plies, ChessGame.TeamColor color, int thresholdPhi, int thresholdDelta) {
+        long key = key(color, plies);
+        int slot = (int) key & mask;
+        if (keys[slot] == key && (proofs[slot] >= thresholdPhi || disproofs[slot] >= thresholdDelta)) {
+            return pack(proofs[slot], disproofs[slot]);
+        }
+        if (stopped) {
+            return pack(1, 1);
+        }
+        nodes++;
+        if ((nodeLimit != 0 && nodes >= nodeLimit) || (nodes % CHECK_INTERVAL == 0 && cancelled)) {
+            stopped = true;
+        }
+
+        boolean attacking = color == attacker;
+        ChessGame.TeamColor opponent = opponent(color);
+        MoveList list = moves[ply];
+        list.clear();
+        LegalMoves.generate(board, color, list);
+        if (list.isEmpty()) {
+            // mated or stalemated: only a mate of the defender is a win for anyone
+            boolean mated = inCheck(color);
+            return store(slot, key, mated ? pack(INFINITY, 0) : attacking ? pack(INFINITY, 0) : pack(0, INFINITY));
+        }
+        if (!attacking && plies == 0) {
+            return store(slot, key, pack(0, INFINITY));
+        }
+        if (attacking && plies == 1) {
+            // the last move has to mate: try the checks and see if any leaves no reply
+            for (int i = 0; i < list.size(); i++) {
+                int move = list.get(i);
+                board.makeMove(Moves.from(move), Moves.to(move), Moves.promotion(move));
+                boolean mate = inCheck(opponent) && !LegalMoves.hasLegalMove(board, opponent, scratch);
+                board.unmakeMove();
+                if (mate) {
+                    return store(slot, key, pack(0, INFINITY));
+                }
+            }
+            return store(slot, key, pack(INFINITY, 0));
+        }
+
+        int[] phis = childPhi[ply];
+        int[] deltas = childDelta[ply];
+        if (phis.length < list.size()) {
+            phis = childPhi[ply] = new int[list.size() * 2];
+            deltas = childDelta[ply] = new int[list.size() * 2];
+        }
+        for (int i = 0; i < list.size(); i++) {
+            int move = list.get(i);
+            board.makeMove(Moves.from(move), Moves.to(move), Moves.promotion(move));
+            long childKey = key(opponent, plies - 1);
+            int childSlot = (int) childKey & mask;
+            if (keys[childSlot] == childKey) {
+                phis[i] = proofs[childSlot];
+                deltas[i] = disproofs[childSlot];
+            } else {
+                // a check leaves the defender few replies, so it is the cheaper line to prove
+                boolean check = attacking && inCheck(opponent);
+                phis[i] = 1;
+                deltas[i] = check ? 1 : 2;
+            }
+            board.unmakeMove();
+        }
+
+        while (true) {
+            // phi is the smallest delta of a child, delta the sum of the children's phi
+            int phi = INFINITY;
+            long delta = 0;
+            int best = 0;
+            int secondDelta = INFINITY;
+            for (int i = 0; i < list.size(); i++) {
+                delta += phis[i];
+                if (deltas[i] < phi) {
+                    secondDelta = phi;
+                    phi = deltas[i];
+                    best = i;
+                } else if (deltas[i] < secondDelta) {
+                    secondDelta = deltas[i];
+                }
+            }
+            int sum = (int) Math.min(delta, INFINITY);
+            if (phi >= thresholdPhi || sum >= thresholdDelta || stopped) {
+                long numbers = pack(phi, sum);
+                return stopped ? numbers : store(slot, key, numbers);
+            }
+
+            int childPhiThreshold = (int) Math.min((long) thresholdDelta + phis[best] - sum, INFINITY);
+            int childDeltaThreshold = Math.min(thresholdPhi, secondDelta + 1);
+            int move = list.get(best);
+            board.makeMove(Moves.from(move), Moves.to(move), Moves.promotion(move));
+            long child = search(ply + 1, plies - 1, opponent, childPhiThreshold, childDeltaThreshold);
+            board.unmakeMove();
+            phis[best] = phi(child);
+            deltas[best] = delta(child);
+        }
+    }
+
+    // walks down a proven mate: the attacker plays a move that still mates, the defender the first reply
+    private List<ChessMove> line(int plies) {
+        List<ChessMove> line = new ArrayList<>();
+        ChessGame.TeamColor color = attacker;
+        int played = 0;
+        MoveList list = new MoveList();
+        for (; plies > 0; plies--) {
+            list.clear();
+            LegalMoves.generate(board, color, list);
+            int chosen = 0;
+            for (int i = 0; i < list.size() && chosen == 0; i++) {
+                int move = list.get(i);
+                if (color != attacker) {
+                    chosen = move;
+                    break;
+                }
+                board.makeMove(Moves.from(move), Moves.to(move), Moves.promotion(move));
+                boolean mates = plies == 1
+                        ? inCheck(opponent(color)) && !LegalMoves.hasLegalMove(board, opponent(color), scratch)
+                        : phi(search(1, plies - 1, opponent(color), INFINITY, INFINITY)) == INFINITY;
+                board.unmakeMove();
+                if (mates) {
+                    chosen = move;
+                }
+            }
+            if (chosen == 0) {
+                break;
+            }
+            line.add(Moves.toChessMove(chosen));
+            board.makeMove(Moves.from(chosen), Moves.to(chosen), Moves.promotion(chosen));
+            played++;
+            color = opponent(color);
+        }
+        for (int i = 0; i < played; i++) {
+            board.unmakeMove();
+        }
+        return line;
+    }
+
+    private long store(int slot, long key, long numbers) {
+        keys[slot] = key;
+        proofs[slot] = phi(numbers);
+        disproofs[slot] = delta(numbers);
+        return numbers;
+    }
+
+    private void ensurePlies(int plies) {
+        if (moves.length > plies) {
+            return;
+        }
+        int old = moves.length;
+        moves = Arrays.copyOf(moves, plies + 1);
+        childPhi = Arrays.copyOf(childPhi, plies + 1);
+        childDelta = Arrays.copyOf(childDelta, plies + 1);
+        for (int ply = old; ply <= plies; ply++) {
+            moves[ply] = new MoveList();
+            childPhi[ply] = new int[64];
+            childDelta[ply] = new int[64];
+        }
+    }
+
+    private long key(ChessGame.TeamColor color, int plies) {
+        return board.getZobristKey() ^ Zobrist.side(color) ^ (plies + 1) * PLIES_MIX;
+    }
+
+    private boolean inCheck(ChessGame.TeamColor color) {
+        long kings = board.pieces(color, ChessPiece.PieceType.KING);
+        return kings != 0 && Attacks.isSquareAttacked(board, Long.numberOfTrailingZeros(kings), opponent(color));
+    }
+
+    private static long pack(int phi, int delta) {
+        return (long) phi << 32 | delta;
+    }
+
+    private static int phi(long numbers) {
+        return (int) (numbers >>> 32);
+    }
+
+    private static int delta(long numbers) {
+        return (int) numbers;
+    }
+
+    private static ChessGame.TeamColor opponent(ChessGame.TeamColor color) {
+        return color == ChessGame.TeamColor.WHITE ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+    }
+}
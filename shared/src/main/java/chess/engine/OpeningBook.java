@@ -0,0 +1,125 @@
+package chess.engine;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.Moves;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Read-only opening book: for a position, the moves played from it and how often.
+ * <p>
+ * The file is an array of {@value #RECORD_SIZE} byte big-endian records, each the position
+ * key ({@link ChessGame#getZobristKey()}), the packed move (see {@link Moves}) and its weight,
+ * sorted by key, as an unsigned number, then by weight from high to low.
+ * {@link OpeningBookBuilder} writes them. The file is memory mapped rather than read, so
+ * processes opening the same book share one copy in the page cache, and a lookup is a
+ * binary search over the mapping. Thread safe.
+ */
+public final class OpeningBook {
+
+    public static final int RECORD_SIZE = 16;
+
+    /**
+     * A book move and the number of games it was played in
+     */
+    public record Entry(ChessMove move, int weight) { }
+
+    private final ByteBuffer records;
+    private final int size;
+
+    private OpeningBook(ByteBuffer records) {
+        this.records = records;
+        this.size = records.capacity() / RECORD_SIZE;
+    }
+
+    public static OpeningBook open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long length = channel.size();
+            if (length % RECORD_SIZE != 0 || length > Integer.MAX_VALUE) {
+                throw new IOException("Not an opening book: " + file + " is " + length + " bytes");
+            }
+            // the mapping stays valid after the channel is closed
+            return new OpeningBook(channel.map(FileChannel.MapMode.READ_ONLY, 0, length));
+        }
+    }
+
+    /**
+     * @return the number of records
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the book moves for the game's current position, most played first
+     */
+    public List<Entry> moves(ChessGame game) {
+        long key = game.getZobristKey();
+        List<Entry> entries = new ArrayList<>();
+        for (int i = first(key); i < size && key(i) == key; i++) {
+            entries.add(new Entry(Moves.toChessMove(records.getInt(i * RECORD_SIZE + 8)),
+                    records.getInt(i * RECORD_SIZE + 12)));
+        }
+        return entries;
+    }
+
+    /**
+     * @return the most played move from the game's current position, or null if the book
+     * has none
+     */
+    public ChessMove best(ChessGame game) {
+        long key = game.getZobristKey();
+        int i = first(key);
+        return i < size && key(i) == key ? Moves.toChessMove(records.getInt(i * RECORD_SIZE + 8)) : null;
+    }
+
+    /**
+     * @return a book move chosen with probability in proportion to its weight, or null if
+     * the book has none
+     */
+    public ChessMove pick(ChessGame game, Random random) {
+        List<Entry> entries = moves(game);
+        long total = 0;
+        for (Entry entry : entries) {
+            total += entry.weight();
+        }
+        if (total == 0) {
+            return null;
+        }
+        long roll = (long) (random.nextDouble() * total);
+        for (Entry entry : entries) {
+            roll -= entry.weight();
+            if (roll < 0) {
+                return entry.move();
+            }
+        }
+        return entries.get(entries.size() - 1).move();
+    }
+
+    // index of the first record with key, or of the first one after it
+    private int first(long key) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (Long.compareUnsigned(key(middle), key) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private long key(int index) {
+        return records.getLong(index * RECORD_SIZE);
+    }
+}
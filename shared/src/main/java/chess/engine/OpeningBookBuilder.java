@@ -0,0 +1,240 @@
+package chess.engine;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.Fen;
+import chess.InvalidMoveException;
+import chess.Moves;
+import chess.San;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Builds an {@link OpeningBook} from games in PGN. Each position reached in the first
+ * moves of a game gets the move played from it, weighted by the number of games that
+ * played it.
+ * <p>
+ * Tag pairs other than {@code FEN}, comments, variations and annotation glyphs are skipped.
+ * A game is only followed up to its first move this game does not allow, such as castling
+ * or en passant.
+ */
+public final class OpeningBookBuilder {
+
+    public static final int DEFAULT_MAX_PLY = 24;
+
+    private final int maxPly;
+    // position key to move to the number of games that played it
+    private final Map<Long, Map<Integer, Integer>> counts = new HashMap<>();
+    private int games;
+
+    public OpeningBookBuilder() {
+        this(DEFAULT_MAX_PLY);
+    }
+
+    /**
+     * @param maxPly how many moves into each game to record
+     */
+    public OpeningBookBuilder(int maxPly) {
+        if (maxPly < 1) {
+            throw new IllegalArgumentException("Max ply must be at least 1: " + maxPly);
+        }
+        this.maxPly = maxPly;
+    }
+
+    /**
+     * Records a game played from start, one SAN move per element
+     *
+     * @return the number of moves recorded
+     */
+    public int addGame(ChessGame start, List<String> sanMoves) {
+        ChessGame game = Fen.read(start.toFen());
+        int ply = 0;
+        games++;
+        for (; ply < maxPly && ply < sanMoves.size(); ply++) {
+            ChessMove move;
+            try {
+                move = San.read(game, sanMoves.get(ply));
+                long key = game.getZobristKey();
+                game.makeMove(move);
+                counts.computeIfAbsent(key, k -> new HashMap<>()).merge(Moves.encode(move), 1, Integer::sum);
+            } catch (IllegalArgumentException | InvalidMoveException e) {
+                break;
+            }
+        }
+        return ply;
+    }
+
+    /**
+     * Records every game in a PGN text
+     */
+    public void addPgn(Reader pgn) throws IOException {
+        BufferedReader in = pgn instanceof BufferedReader buffered ? buffered : new BufferedReader(pgn);
+        List<String> moves = new ArrayList<>();
+        String fen = null;
+        StringBuilder token = new StringBuilder();
+        int variations = 0;
+        int c = in.read();
+        while (c != -1) {
+            if (c == '[' && variations == 0) {
+                if (!moves.isEmpty()) {
+                    finishGame(fen, moves);
+                    fen = null;
+                }
+                String tag = readUntil(in, ']');
+                int open = tag.indexOf('"');
+                int close = tag.lastIndexOf('"');
+                if (tag.startsWith("FEN ") && close > open) {
+                    fen = tag.substring(open + 1, close);
+                }
+            } else if (c == '{') {
+                readUntil(in, '}');
+            } else if (c == ';') {
+                readUntil(in, '\n');
+            } else if (c == '(') {
+                variations++;
+            } else if (c == ')') {
+                variations = Math.max(variations - 1, 0);
+            } else if (!Character.isWhitespace(c)) {
+                token.setLength(0);
+                while (c != -1 && !Character.isWhitespace(c) && "[]{}();".indexOf(c) < 0) {
+                    token.append((char) c);
+                    c = in.read();
+                }
+                if (variations == 0 && token(token.toString(), moves)) {
+                    finishGame(fen, moves);
+                    fen = null;
+                }
+                continue;
+            }
+            c = in.read();
+        }
+        if (!moves.isEmpty()) {
+            finishGame(fen, moves);
+        }
+    }
+
+    /**
+     * Records the games of every {@code .pgn} file directly in folder
+     */
+    public void addFolder(Path folder) throws IOException {
+        List<Path> files;
+        try (Stream<Path> list = Files.list(folder)) {
+            files = list.filter(path -> path.getFileName().toString().toLowerCase().endsWith(".pgn")).sorted().toList();
+        }
+        for (Path file : files) {
+            try (Reader reader = Files.newBufferedReader(file, StandardCharsets.ISO_8859_1)) {
+                addPgn(reader);
+            }
+        }
+    }
+
+    public int games() {
+        return games;
+    }
+
+    /**
+     * @return the number of distinct position and move pairs, which is the number of records
+     * the book will have
+     */
+    public int records() {
+        int records = 0;
+        for (Map<Integer, Integer> moves : counts.values()) {
+            records += moves.size();
+        }
+        return records;
+    }
+
+    public void write(Path file) throws IOException {
+        long[][] records = new long[records()][];
+        int n = 0;
+        for (Map.Entry<Long, Map<Integer, Integer>> position : counts.entrySet()) {
+            for (Map.Entry<Integer, Integer> move : position.getValue().entrySet()) {
+                records[n++] = new long[]{position.getKey(), move.getKey(), move.getValue()};
+            }
+        }
+        // the move breaks ties so the same games always give the same file
+        Arrays.sort(records, (a, b) -> a[0] != b[0] ? Long.compareUnsigned(a[0], b[0])
+                : a[2] != b[2] ? Long.compare(b[2], a[2]) : Long.compare(a[1], b[1]));
+
+        ByteBuffer out = ByteBuffer.allocate(records.length * OpeningBook.RECORD_SIZE);
+        for (long[] record : records) {
+            out.putLong(record[0]).putInt((int) record[1]).putInt((int) record[2]);
+        }
+        out.flip();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (out.hasRemaining()) {
+                channel.write(out);
+            }
+        }
+    }
+
+    // builds a book from a folder of PGN files: <folder> <book file> [max ply]
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("usage: OpeningBookBuilder <pgn folder> <book file> [max ply]");
+            System.exit(2);
+        }
+        OpeningBookBuilder builder = new OpeningBookBuilder(args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_MAX_PLY);
+        builder.addFolder(Path.of(args[0]));
+        builder.write(Path.of(args[1]));
+        System.out.printf("%,d games, %,d records%n", builder.games(), builder.records());
+    }
+
+    private void finishGame(String fen, List<String> moves) {
+        try {
+            addGame(fen == null ? new ChessGame() : Fen.read(fen), moves);
+        } catch (IllegalArgumentException e) {
+            // a game from a start position that cannot be read is left out
+        }
+        moves.clear();
+    }
+
+    // adds a move to the game, returning true if the token ends it instead
+    private static boolean token(String token, List<String> moves) {
+        if (token.equals("1-0") || token.equals("0-1") || token.equals("1/2-1/2") || token.equals("*")) {
+            return true;
+        }
+        if (token.startsWith("$")) {
+            return false;
+        }
+        // move numbers, "12." or "12...", sometimes written against the move itself
+        int i = 0;
+        while (i < token.length() && Character.isDigit(token.charAt(i))) {
+            i++;
+        }
+        if (i > 0 && i < token.length() && token.charAt(i) == '.') {
+            while (i < token.length() && token.charAt(i) == '.') {
+                i++;
+            }
+            token = token.substring(i);
+        }
+        if (!token.isEmpty()) {
+            moves.add(token);
+        }
+        return false;
+    }
+
+    private static String readUntil(Reader in, char end) throws IOException {
+        StringBuilder text = new StringBuilder();
+        int c;
+        while ((c = in.read()) != -1 && c != end) {
+            text.append((char) c);
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,511 @@
+package chess.engine;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPiece;
+import chess.MoveList;
+import chess.Moves;
+import chess.Zobrist;
+import chess.pieces.Attacks;
+import chess.pieces.LegalMoves;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * One search thread: iterative deepening over a negamax alpha-beta search, with a
+ * quiescence search of captures at the leaves so positions are only judged once they are
+ * quiet. Moves are played through an {@link Evaluator}, which keeps the leaf score up to
+ * date as the search goes.
+ * <p>
+ * Moves are tried in this order: the move the transposition table remembers, captures by
+ * most valuable victim then least valuable attacker, promotions, the two killer moves of
+ * the ply (quiet moves that caused a cutoff in a sibling), then other quiet moves by their
+ * history score. The search works on its own copy of the board, so the game passed to
+ * {@link #run} is never changed. A Search can be run again and again, each run starting
+ * from nothing but what the table holds. A Search is not thread safe.
+ * <p>
+ * Several Searches can run on the same root at once ("lazy SMP"): they share the
+ * {@link TranspositionTable}, a stop flag and a node count and nothing else. Each helper
+ * finds the table filled by the others and gets further faster; odd numbered helpers search
+ * one ply deeper than the main thread so the threads do not all repeat the same work.
+ */
+public final class Search {
+
+    public static final int MATE = 30000;
+    public static final int MAX_PLY = 128;
+
+    private static final int INFINITY = 32000;
+
+    // nodes between checks of the clock and of the other threads
+    private static final int CHECK_INTERVAL = 1024;
+
+    // move ordering bands, highest first
+    private static final int TABLE_MOVE = 1 << 30;
+    private static final int CAPTURE = 1 << 24;
+    private static final int PROMOTION = 1 << 23;
+    private static final int KILLER = 1 << 22;
+    private static final int HISTORY_MAX = 1 << 20;
+
+    // rough piece order for MVV-LVA by PieceType ordinal, the king as the least wanted attacker
+    private static final int[] ORDER_VALUE = {20, 9, 3, 3, 5, 1};
+
+    private final TranspositionTable table;
+    private final AtomicBoolean stop;
+    private final AtomicLong sharedNodes;
+    private final int helper;
+
+    private final MoveList[] moves = new MoveList[MAX_PLY + 1];
+    private final int[][] scores = new int[MAX_PLY + 1][];
+    private final int[][] killers = new int[MAX_PLY + 1][2];
+    private final int[][] history = new int[2][64 * 64];
+    // position keys along the current line, for spotting repetitions
+    private final long[] path = new long[MAX_PLY + 1];
+    private final Evaluator evaluator = new Evaluator();
+    private Tablebase tablebase;
+
+    private ChessBoard board;
+    private long nodes;
+    private long nodeLimit;
+    private long deadline;
+    private boolean stopped;
+
+    public Search(TranspositionTable table) {
+        this(table, new AtomicBoolean(), new AtomicLong(), 0);
+    }
+
+    /**
+     * A search that runs alongside others on the same root
+     *
+     * @param stop set by any of the searches when a limit is reached, and by the caller to end them
+     * @param sharedNodes nodes of all the searches together, for the node limit
+     * @param helper 0 for the main search, 1 and up for helpers
+     */
+    Search(TranspositionTable table, AtomicBoolean stop, AtomicLong sharedNodes, int helper) {
+        this.table = table;
+        this.stop = stop;
+        this.sharedNodes = sharedNodes;
+        this.helper = helper;
+        for (int ply = 0; ply <= MAX_PLY; ply++) {
+            moves[ply] = new MoveList();
+            scores[ply] = new int[64];
+        }
+    }
+
+    /**
+     * @param tablebase probed for the exact result of positions it covers, or null
+     */
+    public void setTablebase(Tablebase tablebase) {
+        this.tablebase = tablebase;
+    }
+
+    public SearchResult run(ChessGame game, SearchLimits limits) {
+        return run(new ChessBoard(game.getBoard()), game.getTeamTurn(), limits);
+    }
+
+    /**
+     * Searches board itself rather than a copy. The board is back in its starting position
+     * when this returns
+     */
+    SearchResult run(ChessBoard board, ChessGame.TeamColor color, SearchLimits limits) {
+        long start = System.nanoTime();
+        this.board = board;
+        evaluator.reset(board);
+        nodes = 0;
+        nodeLimit = limits.nodes();
+        deadline = limits.millis() == 0 ? Long.MAX_VALUE : start + limits.millis() * 1_000_000;
+        stopped = false;
+        for (int[] pair : killers) {
+            pair[0] = 0;
+            pair[1] = 0;
+        }
+        for (int[] colorHistory : history) {
+            Arrays.fill(colorHistory, 0);
+        }
+
+        MoveList root = new MoveList();
+        LegalMoves.generate(board, color, root);
+        if (root.isEmpty()) {
+            int score = inCheck(color) ? -MATE : 0;
+            return new SearchResult(null, score, 0, 0, System.nanoTime() - start, List.of());
+        }
+        path[0] = key(color);
+        scoreMoves(root, 0, 0, color);
+        sortRoot(root);
+
+        int bestMove = root.get(0);
+        int bestScore = 0;
+        int completed = 0;
+        for (int depth = 1 + (helper & 1); depth <= limits.maxDepth(); depth++) {
+            int[] best = searchRoot(root, depth, color);
+            if (stopped) {
+                // a cut short iteration only counts if it already found something better than the last one
+                if (best[0] != 0 && (completed == 0 || best[1] > bestScore)) {
+                    bestMove = best[0];
+                    bestScore = best[1];
+                }
+                break;
+            }
+            bestMove = best[0];
+            bestScore = best[1];
+            completed = depth;
+            moveToFront(root, bestMove);
+            if (Math.abs(bestScore) >= MATE - MAX_PLY && MATE - Math.abs(bestScore) <= depth) {
+                // a mate inside the searched depth cannot get any shorter
+                break;
+            }
+        }
+
+        return new SearchResult(Moves.toChessMove(bestMove), bestScore, completed, nodes,
+                System.nanoTime() - start, principalVariation(bestMove, color, Math.max(completed, 1)));
+    }
+
+    public long nodes() {
+        return nodes;
+    }
+
+    // returns {best move, score}, the move 0 if the iteration stopped before any move finished
+    private int[] searchRoot(MoveList root, int depth, ChessGame.TeamColor color) {
+        int alpha = -INFINITY;
+        int bestMove = 0;
+        ChessGame.TeamColor next = opponent(color);
+        for (int i = 0; i < root.size(); i++) {
+            int move = root.get(i);
+            evaluator.makeMove(move);
+            int score = -alphaBeta(depth - 1, -INFINITY, -alpha, 1, next);
+            evaluator.unmakeMove();
+            if (stopped) {
+                break;
+            }
+            if (score > alpha) {
+                alpha = score;
+                bestMove = move;
+            }
+        }
+        if (!stopped) {
+            table.store(path[0], bestMove, alpha, depth, TranspositionTable.EXACT);
+        }
+        return new int[]{bestMove, alpha};
+    }
+
+    private int alphaBeta(int depth, int alpha, int beta, int ply, ChessGame.TeamColor color) {
+        if (limitReached()) {
+            return 0;
+        }
+        long key = key(color);
+        path[ply] = key;
+        if (isRepetition(ply)) {
+            return 0;
+        }
+        if (tablebase != null && Long.bitCount(board.occupied()) <= 3) {
+            int entry = tablebase.entry(board, color);
+            if (entry >= 0) {
+                return Tablebase.score(entry, ply);
+            }
+        }
+        if (ply >= MAX_PLY) {
+            return evaluator.evaluate(color);
+        }
+        boolean inCheck = inCheck(color);
+        if (inCheck) {
+            depth++;
+        }
+        if (depth <= 0) {
+            return quiescence(alpha, beta, ply, color);
+        }
+
+        int tableMove = 0;
+        long entry = table.probe(key);
+        if (entry != 0) {
+            tableMove = TranspositionTable.move(entry);
+            if (TranspositionTable.depth(entry) >= depth) {
+                int score = fromTable(TranspositionTable.score(entry), ply);
+                int bound = TranspositionTable.bound(entry);
+                if (bound == TranspositionTable.EXACT
+                        || (bound == TranspositionTable.LOWER && score >= beta)
+                        || (bound == TranspositionTable.UPPER && score <= alpha)) {
+                    return score;
+                }
+            }
+        }
+
+        MoveList list = moves[ply];
+        list.clear();
+        LegalMoves.generate(board, color, list);
+        if (list.isEmpty()) {
+            return inCheck ? -MATE + ply : 0;
+        }
+        scoreMoves(list, ply, tableMove, color);
+
+        int originalAlpha = alpha;
+        int best = -INFINITY;
+        int bestMove = 0;
+        ChessGame.TeamColor next = opponent(color);
+        for (int i = 0; i < list.size(); i++) {
+            int move = pickNext(list, ply, i);
+            ChessPiece captured = evaluator.makeMove(move);
+            int score = -alphaBeta(depth - 1, -beta, -alpha, ply + 1, next);
+            evaluator.unmakeMove();
+            if (stopped) {
+                return 0;
+            }
+            if (score > best) {
+                best = score;
+                bestMove = move;
+                if (score > alpha) {
+                    alpha = score;
+                    if (alpha >= beta) {
+                        if (captured == null && !Moves.isPromotion(move)) {
+                            rememberQuiet(move, ply, depth, color);
+                        }
+                        break;
+                    }
+                }
+            }
+        }
+
+        int bound = best >= beta ? TranspositionTable.LOWER
+                : best > originalAlpha ? TranspositionTable.EXACT : TranspositionTable.UPPER;
+        table.store(key, bestMove, toTable(best, ply), depth, bound);
+        return best;
+    }
+
+    // captures and promotions until the position is quiet. in check every evasion is searched, since
+    // standing pat is not an option there
+    private int quiescence(int alpha, int beta, int ply, ChessGame.TeamColor color) {
+        if (limitReached()) {
+            return 0;
+        }
+        if (ply >= MAX_PLY) {
+            return evaluator.evaluate(color);
+        }
+        path[ply] = key(color);
+        boolean inCheck = inCheck(color);
+        int best;
+        if (inCheck) {
+            // only checks can go round in circles here, captures always change the position for good
+            if (isRepetition(ply)) {
+                return 0;
+            }
+            best = -MATE + ply;
+        } else {
+            best = evaluator.evaluate(color);
+            if (best >= beta) {
+                return best;
+            }
+            alpha = Math.max(alpha, best);
+        }
+
+        MoveList list = moves[ply];
+        list.clear();
+        LegalMoves.generate(board, color, list);
+        if (!inCheck) {
+            keepNoisy(list, color);
+        }
+        scoreMoves(list, ply, 0, color);
+
+        ChessGame.TeamColor next = opponent(color);
+        for (int i = 0; i < list.size(); i++) {
+            int move = pickNext(list, ply, i);
+            evaluator.makeMove(move);
+            int score = -quiescence(-beta, -alpha, ply + 1, next);
+            evaluator.unmakeMove();
+            if (stopped) {
+                return 0;
+            }
+            if (score > best) {
+                best = score;
+                if (score > alpha) {
+                    alpha = score;
+                    if (alpha >= beta) {
+                        break;
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    private boolean limitReached() {
+        if (stopped) {
+            return true;
+        }
+        nodes++;
+        if (nodeLimit != 0 && nodes >= nodeLimit) {
+            stopped = true;
+        } else if ((nodes & (CHECK_INTERVAL - 1)) == 0) {
+            long total = sharedNodes.addAndGet(CHECK_INTERVAL);
+            stopped = stop.get() || (nodeLimit != 0 && total >= nodeLimit) || System.nanoTime() > deadline;
+        }
+        if (stopped) {
+            stop.set(true);
+        }
+        return stopped;
+    }
+
+    // same position with the same side to move earlier on this line. two plies back can never match
+    private boolean isRepetition(int ply) {
+        for (int earlier = ply - 4; earlier >= 0; earlier -= 2) {
+            if (path[earlier] == path[ply]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // drops quiet moves, keeping captures and promotions
+    private void keepNoisy(MoveList list, ChessGame.TeamColor color) {
+        long enemies = board.occupancy(opponent(color));
+        int kept = 0;
+        for (int i = 0; i < list.size(); i++) {
+            int move = list.get(i);
+            if (Moves.isPromotion(move) || (enemies & (1L << Moves.to(move))) != 0) {
+                list.set(kept++, move);
+            }
+        }
+        list.truncate(kept);
+    }
+
+    private void scoreMoves(MoveList list, int ply, int tableMove, ChessGame.TeamColor color) {
+        if (scores[ply].length < list.size()) {
+            scores[ply] = new int[list.size() * 2];
+        }
+        int[] out = scores[ply];
+        int[] colorHistory = history[color.ordinal()];
+        for (int i = 0; i < list.size(); i++) {
+            int move = list.get(i);
+            int from = Moves.from(move);
+            int to = Moves.to(move);
+            ChessPiece victim = board.getPiece(to);
+            int score;
+            if (move == tableMove) {
+                score = TABLE_MOVE;
+            } else if (victim != null) {
+                int attacker = board.getPiece(from).getPieceType().ordinal();
+                score = CAPTURE + ORDER_VALUE[victim.getPieceType().ordinal()] * 64 - ORDER_VALUE[attacker];
+            } else if (Moves.isPromotion(move)) {
+                score = PROMOTION + ORDER_VALUE[Moves.promotion(move).ordinal()];
+            } else if (move == killers[ply][0]) {
+                score = KILLER + 1;
+            } else if (move == killers[ply][1]) {
+                score = KILLER;
+            } else {
+                score = colorHistory[from * 64 + to];
+            }
+            out[i] = score;
+        }
+    }
+
+    // selection sort one step at a time: most nodes cut off after the first few moves
+    private int pickNext(MoveList list, int ply, int index) {
+        int[] score = scores[ply];
+        int best = index;
+        for (int i = index + 1; i < list.size(); i++) {
+            if (score[i] > score[best]) {
+                best = i;
+            }
+        }
+        int move = list.get(best);
+        if (best != index) {
+            list.set(best, list.get(index));
+            list.set(index, move);
+            int s = score[best];
+            score[best] = score[index];
+            score[index] = s;
+        }
+        return move;
+    }
+
+    private void sortRoot(MoveList root) {
+        for (int i = 0; i < root.size(); i++) {
+            pickNext(root, 0, i);
+        }
+    }
+
+    // moves the move to index 0, keeping the order of the others
+    private static void moveToFront(MoveList list, int move) {
+        int at = 0;
+        while (list.get(at) != move) {
+            at++;
+        }
+        for (; at > 0; at--) {
+            list.set(at, list.get(at - 1));
+        }
+        list.set(0, move);
+    }
+
+    private void rememberQuiet(int move, int ply, int depth, ChessGame.TeamColor color) {
+        if (killers[ply][0] != move) {
+            killers[ply][1] = killers[ply][0];
+            killers[ply][0] = move;
+        }
+        int[] colorHistory = history[color.ordinal()];
+        int index = Moves.from(move) * 64 + Moves.to(move);
+        colorHistory[index] += depth * depth;
+        if (colorHistory[index] >= HISTORY_MAX) {
+            for (int[] table : history) {
+                for (int i = 0; i < table.length; i++) {
+                    table[i] /= 2;
+                }
+            }
+        }
+    }
+
+    // follows the table's best moves from the root, as long as they are still legal
+    private List<ChessMove> principalVariation(int bestMove, ChessGame.TeamColor color, int length) {
+        List<ChessMove> line = new ArrayList<>();
+        int move = bestMove;
+        int played = 0;
+        while (move != 0 && line.size() < length && LegalMoves.isLegal(board, move)
+                && board.getPiece(Moves.from(move)).getTeamColor() == color) {
+            line.add(Moves.toChessMove(move));
+            board.makeMove(Moves.from(move), Moves.to(move), Moves.promotion(move));
+            played++;
+            color = opponent(color);
+            long entry = table.probe(key(color));
+            move = entry == 0 ? 0 : TranspositionTable.move(entry);
+        }
+        for (int i = 0; i < played; i++) {
+            board.unmakeMove();
+        }
+        return line;
+    }
+
+    private long key(ChessGame.TeamColor color) {
+        return board.getZobristKey() ^ Zobrist.side(color);
+    }
+
+    private boolean inCheck(ChessGame.TeamColor color) {
+        long kings = board.pieces(color, ChessPiece.PieceType.KING);
+        return kings != 0 && Attacks.isSquareAttacked(board, Long.numberOfTrailingZeros(kings), opponent(color));
+    }
+
+    // mate scores are stored relative to the node so they stay right when reached along another path
+    private static int toTable(int score, int ply) {
+        if (score >= MATE - MAX_PLY) {
+            return score + ply;
+        }
+        if (score <= -MATE + MAX_PLY) {
+            return score - ply;
+        }
+        return score;
+    }
+
+    private static int fromTable(int score, int ply) {
+        if (score >= MATE - MAX_PLY) {
+            return score - ply;
+        }
+        if (score <= -MATE + MAX_PLY) {
+            return score + ply;
+        }
+        return score;
+    }
+
+    private static ChessGame.TeamColor opponent(ChessGame.TeamColor color) {
+        return color == ChessGame.TeamColor.WHITE ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+    }
+}
@@ -0,0 +1,59 @@
+package chess.engine;
+
+/**
+ * When a search stops, and how many threads it uses. A search stops after a depth is
+ * finished, after a number of nodes, or after a time, whichever comes first; 0 means no
+ * limit. A search with no limits at all stops at {@link #MAX_DEPTH}.
+ * <p>
+ * Single threaded searches limited only by depth or nodes are repeatable, which makes
+ * those limits the right ones for tests and benchmarks. With more threads the node limit
+ * counts the nodes of all threads and is checked every few thousand nodes.
+ */
+public record SearchLimits(int depth, long nodes, long millis, int threads) {
+
+    public static final int MAX_DEPTH = 64;
+
+    public SearchLimits {
+        if (depth < 0 || nodes < 0 || millis < 0) {
+            throw new IllegalArgumentException("Search limits cannot be negative");
+        }
+        if (depth > MAX_DEPTH) {
+            throw new IllegalArgumentException("Depth is at most " + MAX_DEPTH + ": " + depth);
+        }
+        if (threads < 1) {
+            throw new IllegalArgumentException("A search needs at least one thread: " + threads);
+        }
+    }
+
+    public static SearchLimits depth(int depth) {
+        return new SearchLimits(depth, 0, 0, 1);
+    }
+
+    public static SearchLimits nodes(long nodes) {
+        return new SearchLimits(0, nodes, 0, 1);
+    }
+
+    public static SearchLimits millis(long millis) {
+        return new SearchLimits(0, 0, millis, 1);
+    }
+
+    public SearchLimits withDepth(int depth) {
+        return new SearchLimits(depth, nodes, millis, threads);
+    }
+
+    public SearchLimits withNodes(long nodes) {
+        return new SearchLimits(depth, nodes, millis, threads);
+    }
+
+    public SearchLimits withMillis(long millis) {
+        return new SearchLimits(depth, nodes, millis, threads);
+    }
+
+    public SearchLimits withThreads(int threads) {
+        return new SearchLimits(depth, nodes, millis, threads);
+    }
+
+    public int maxDepth() {
+        return depth == 0 ? MAX_DEPTH : depth;
+    }
+}
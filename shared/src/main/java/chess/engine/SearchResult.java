@@ -0,0 +1,37 @@
+package chess.engine;
+
+import chess.ChessMove;
+
+import java.util.List;
+
+/**
+ * What a search found. The score is in centipawns from the point of view of the side to
+ * move; mate scores are within {@link Search#MAX_PLY} of {@link Search#MATE}.
+ *
+ * @param bestMove the move to play, or null when the side to move has no legal move
+ * @param depth the deepest iteration that finished
+ * @param principalVariation the expected line of play, starting with bestMove
+ */
+public record SearchResult(ChessMove bestMove, int score, int depth, long nodes, long nanos,
+                           List<ChessMove> principalVariation) {
+
+    public double nodesPerSecond() {
+        return nanos == 0 ? 0 : nodes * 1_000_000_000.0 / nanos;
+    }
+
+    public boolean isMate() {
+        return Math.abs(score) >= Search.MATE - Search.MAX_PLY;
+    }
+
+    /**
+     * @return moves until mate, positive when the side to move mates and negative when it is
+     * mated, or 0 when the score is not a mate
+     */
+    public int mateIn() {
+        if (!isMate()) {
+            return 0;
+        }
+        int plies = Search.MATE - Math.abs(score);
+        return score > 0 ? (plies + 1) / 2 : -(plies / 2);
+    }
+}
@@ -0,0 +1,230 @@
+package chess.engine;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPiece;
+import chess.MoveList;
+import chess.Moves;
+import chess.pieces.LegalMoves;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Exact results for positions of a king and one piece against a bare king, read from
+ * files made by {@link TablebaseGenerator}. A probe is one read from a memory mapped file,
+ * so processes probing the same tables share one copy in the page cache. Thread safe.
+ * <p>
+ * Each table has one byte per position, indexed by {@link #index}: bits 0-1 hold the
+ * result for the side to move (0 not a legal position, 1 draw, 2 win, 3 loss) and bits
+ * 2-7 the number of moves to mate. Tables are stored with white as the side with the
+ * extra piece; positions where black has it are flipped top to bottom before probing.
+ * Bare kings, and a king and minor piece against a king, are draws without a table.
+ * <p>
+ * The fifty-move rule and repetitions are not taken into account.
+ */
+public final class Tablebase {
+
+    /**
+     * The material sets there are tables for, named after the pieces on the board
+     */
+    public enum Material {
+        KQK(ChessPiece.PieceType.QUEEN),
+        KRK(ChessPiece.PieceType.ROOK),
+        KPK(ChessPiece.PieceType.PAWN);
+
+        private final ChessPiece.PieceType piece;
+
+        Material(ChessPiece.PieceType piece) {
+            this.piece = piece;
+        }
+
+        public ChessPiece.PieceType piece() {
+            return piece;
+        }
+
+        public String fileName() {
+            return name() + ".tb";
+        }
+    }
+
+    public enum Wdl { WIN, DRAW, LOSS }
+
+    /**
+     * @param movesToMate moves the winning side needs to mate, counting its own moves only;
+     * 0 for a draw or when already mated
+     */
+    public record Result(Wdl wdl, int movesToMate) { }
+
+    public static final int SIZE = 2 * 64 * 64 * 64;
+
+    static final int ILLEGAL = 0;
+    static final int DRAW = 1;
+    static final int WIN = 2;
+    static final int LOSS = 3;
+
+    // returned by locate for positions that are drawn on material
+    static final int DEAD = Integer.MAX_VALUE;
+    static final int INDEX_BITS = 19;
+
+    private static final ChessPiece.PieceType[] EXTRA_PIECES = {ChessPiece.PieceType.QUEEN,
+            ChessPiece.PieceType.ROOK, ChessPiece.PieceType.PAWN, ChessPiece.PieceType.BISHOP,
+            ChessPiece.PieceType.KNIGHT};
+    private static final Material[] MATERIALS = Material.values();
+
+    private final ByteBuffer[] tables = new ByteBuffer[MATERIALS.length];
+
+    private Tablebase(Map<Material, ByteBuffer> tables) {
+        tables.forEach((material, table) -> this.tables[material.ordinal()] = table);
+    }
+
+    /**
+     * Maps every table found in folder. Missing tables are simply not probed.
+     */
+    public static Tablebase open(Path folder) throws IOException {
+        Map<Material, ByteBuffer> tables = new EnumMap<>(Material.class);
+        for (Material material : MATERIALS) {
+            Path file = folder.resolve(material.fileName());
+            if (!Files.exists(file)) {
+                continue;
+            }
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                if (channel.size() != SIZE) {
+                    throw new IOException("Not a tablebase: " + file + " is " + channel.size() + " bytes");
+                }
+                // the mapping stays valid after the channel is closed
+                tables.put(material, channel.map(FileChannel.MapMode.READ_ONLY, 0, SIZE));
+            }
+        }
+        return new Tablebase(tables);
+    }
+
+    public boolean has(Material material) {
+        return tables[material.ordinal()] != null;
+    }
+
+    /**
+     * @return the result for the side to move, or null if the position is not covered
+     */
+    public Result probe(ChessBoard board, ChessGame.TeamColor toMove) {
+        int entry = entry(board, toMove);
+        if (entry < 0) {
+            return null;
+        }
+        return switch (entry & 3) {
+            case WIN -> new Result(Wdl.WIN, entry >>> 2);
+            case LOSS -> new Result(Wdl.LOSS, entry >>> 2);
+            case DRAW -> new Result(Wdl.DRAW, 0);
+            default -> null;
+        };
+    }
+
+    /**
+     * @return the legal move that wins fastest, or failing that draws, or failing that loses
+     * slowest; null if the position is not covered or has no legal move
+     */
+    public ChessMove bestMove(ChessBoard position, ChessGame.TeamColor toMove) {
+        if (entry(position, toMove) < 0) {
+            return null;
+        }
+        ChessBoard board = new ChessBoard(position);
+        MoveList moves = new MoveList();
+        LegalMoves.generate(board, toMove, moves);
+        ChessGame.TeamColor opponent = toMove == ChessGame.TeamColor.WHITE
+                ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+        int best = 0;
+        int bestScore = Integer.MIN_VALUE;
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            board.makeMove(Moves.from(move), Moves.to(move), Moves.promotion(move));
+            int entry = entry(board, opponent);
+            board.unmakeMove();
+            // a promotion into a table that is not there counts as unknown, just below a draw
+            int score = entry < 0 ? -1 : -score(entry, 0);
+            if (score > bestScore) {
+                bestScore = score;
+                best = move;
+            }
+        }
+        return best == 0 ? null : Moves.toChessMove(best);
+    }
+
+    /**
+     * @return the raw table byte for the position, a draw for dead material, or -1 if it is
+     * not covered
+     */
+    int entry(ChessBoard board, ChessGame.TeamColor toMove) {
+        int located = locate(board, toMove);
+        if (located == DEAD) {
+            return DRAW;
+        }
+        if (located < 0) {
+            return -1;
+        }
+        ByteBuffer table = tables[located >>> INDEX_BITS];
+        return table == null ? -1 : table.get(located & (SIZE - 1)) & 0xFF;
+    }
+
+    /**
+     * @return a search score for a table byte, mate scores counted from ply
+     */
+    static int score(int entry, int ply) {
+        int moves = entry >>> 2;
+        return switch (entry & 3) {
+            case WIN -> Search.MATE - ply - (2 * moves - 1);
+            case LOSS -> -(Search.MATE - ply - 2 * moves);
+            default -> 0;
+        };
+    }
+
+    /**
+     * @param strongToMove 0 if the side with the extra piece is to move, 1 if not
+     */
+    static int index(int strongToMove, int strongKing, int weakKing, int piece) {
+        return ((strongToMove * 64 + strongKing) * 64 + weakKing) * 64 + piece;
+    }
+
+    /**
+     * @return the material's ordinal above {@link #INDEX_BITS} bits of index, {@link #DEAD} for
+     * a draw on material, or -1 if no table could cover the position
+     */
+    static int locate(ChessBoard board, ChessGame.TeamColor toMove) {
+        long occupied = board.occupied();
+        long whiteKing = board.pieces(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING);
+        long blackKing = board.pieces(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING);
+        if (Long.bitCount(occupied) > 3 || whiteKing == 0 || blackKing == 0) {
+            return -1;
+        }
+        if (Long.bitCount(occupied) == 2) {
+            return DEAD;
+        }
+        for (ChessGame.TeamColor color : ChessGame.TeamColor.values()) {
+            for (ChessPiece.PieceType type : EXTRA_PIECES) {
+                long bits = board.pieces(color, type);
+                if (bits == 0) {
+                    continue;
+                }
+                if (type == ChessPiece.PieceType.BISHOP || type == ChessPiece.PieceType.KNIGHT) {
+                    return DEAD;
+                }
+                boolean white = color == ChessGame.TeamColor.WHITE;
+                // black's tables are white's turned upside down
+                int flip = white ? 0 : 56;
+                int strongKing = Long.numberOfTrailingZeros(white ? whiteKing : blackKing) ^ flip;
+                int weakKing = Long.numberOfTrailingZeros(white ? blackKing : whiteKing) ^ flip;
+                int piece = Long.numberOfTrailingZeros(bits) ^ flip;
+                Material material = type == ChessPiece.PieceType.QUEEN ? Material.KQK
+                        : type == ChessPiece.PieceType.ROOK ? Material.KRK : Material.KPK;
+                return material.ordinal() << INDEX_BITS | index(toMove == color ? 0 : 1, strongKing, weakKing, piece);
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,216 @@
+package chess.engine;
+
+import chess.Bitboards;
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessPiece;
+import chess.MoveList;
+import chess.Moves;
+import chess.pieces.Attacks;
+import chess.pieces.LegalMoves;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Builds the {@link Tablebase} files.
+ * <p>
+ * Every position of a table is set up once and its legal moves generated, giving the
+ * positions it leads to: positions in the same table, or results known already for
+ * captures, which leave dead material, and promotions, which lead into a table built
+ * earlier. The results are then worked backwards from the mates one ply per pass: a
+ * position is won in n plies if a move leads to a position lost in n - 1, and lost in n
+ * if every move leads to a position won in at most n - 1. Whatever is left when a pass
+ * changes nothing is a draw.
+ */
+public final class TablebaseGenerator {
+
+    // packed value of a move that leaves the table: result << PLIES_BITS | plies, stored negated
+    private static final int PLIES_BITS = 10;
+    private static final int MAX_MOVES = 63;
+    private static final short OPEN = Short.MAX_VALUE;
+
+    private TablebaseGenerator() { }
+
+    /**
+     * @return every table, each built after the ones its promotions lead into
+     */
+    public static Map<Tablebase.Material, byte[]> generateAll() {
+        Map<Tablebase.Material, byte[]> tables = new EnumMap<>(Tablebase.Material.class);
+        for (Tablebase.Material material : Tablebase.Material.values()) {
+            tables.put(material, generate(material, tables));
+        }
+        return tables;
+    }
+
+    /**
+     * @param earlier tables already built; KPK needs KQK and KRK for its promotions
+     */
+    public static byte[] generate(Tablebase.Material material, Map<Tablebase.Material, byte[]> earlier) {
+        int size = Tablebase.SIZE;
+        byte[] result = new byte[size];
+        short[] plies = new short[size];
+        // the moves of position i are children[start[i]] to children[start[i + 1]]
+        int[] start = new int[size + 1];
+        int[] children = new int[size * 8];
+        int count = 0;
+        int maxOutside = 0;
+
+        ChessBoard board = new ChessBoard();
+        MoveList moves = new MoveList();
+        ChessPiece piece = ChessPiece.of(ChessGame.TeamColor.WHITE, material.piece());
+        ChessPiece whiteKing = ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING);
+        ChessPiece blackKing = ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING);
+        for (int index = 0; index < size; index++) {
+            start[index] = count;
+            int strongToMove = index >>> 18;
+            int strongKing = (index >>> 12) & 63;
+            int weakKing = (index >>> 6) & 63;
+            int square = index & 63;
+            boolean pawnOnEdge = material.piece() == ChessPiece.PieceType.PAWN && (square < 8 || square >= 56);
+            if (strongKing == weakKing || square == strongKing || square == weakKing || pawnOnEdge) {
+                continue;
+            }
+            ChessGame.TeamColor toMove = strongToMove == 0 ? ChessGame.TeamColor.WHITE : ChessGame.TeamColor.BLACK;
+            ChessGame.TeamColor other = strongToMove == 0 ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+            board.addPiece(Bitboards.position(strongKing), whiteKing);
+            board.addPiece(Bitboards.position(weakKing), blackKing);
+            board.addPiece(Bitboards.position(square), piece);
+
+            // the side that just moved cannot have left its king in check
+            if (!Attacks.isSquareAttacked(board, toMove == ChessGame.TeamColor.WHITE ? weakKing : strongKing, toMove)) {
+                // open until the passes below decide it; mates and stalemates are decided already
+                result[index] = Tablebase.DRAW;
+                plies[index] = OPEN;
+                moves.clear();
+                LegalMoves.generate(board, toMove, moves);
+                if (moves.isEmpty()) {
+                    int king = toMove == ChessGame.TeamColor.WHITE ? strongKing : weakKing;
+                    if (Attacks.isSquareAttacked(board, king, other)) {
+                        result[index] = Tablebase.LOSS;
+                    }
+                    plies[index] = 0;
+                }
+                for (int i = 0; i < moves.size(); i++) {
+                    int move = moves.get(i);
+                    board.makeMove(Moves.from(move), Moves.to(move), Moves.promotion(move));
+                    int child = child(board, other, material, earlier);
+                    board.unmakeMove();
+                    if (count == children.length) {
+                        children = Arrays.copyOf(children, count * 2);
+                    }
+                    children[count++] = child;
+                    if (child < 0) {
+                        maxOutside = Math.max(maxOutside, (-child - 1) & ((1 << PLIES_BITS) - 1));
+                    }
+                }
+            }
+            board.addPiece(Bitboards.position(strongKing), null);
+            board.addPiece(Bitboards.position(weakKing), null);
+            board.addPiece(Bitboards.position(square), null);
+        }
+        start[size] = count;
+
+        for (int n = 1; ; n++) {
+            boolean changed = false;
+            for (int index = 0; index < size; index++) {
+                if (plies[index] != OPEN) {
+                    continue;
+                }
+                boolean win = false;
+                boolean allLost = true;
+                for (int c = start[index]; c < start[index + 1] && !win; c++) {
+                    int child = children[c];
+                    int childResult;
+                    int childPlies;
+                    if (child >= 0) {
+                        childResult = result[child];
+                        childPlies = plies[child];
+                    } else {
+                        childResult = (-child - 1) >>> PLIES_BITS;
+                        childPlies = (-child - 1) & ((1 << PLIES_BITS) - 1);
+                    }
+                    boolean settled = childPlies <= n - 1;
+                    if (childResult == Tablebase.LOSS && settled) {
+                        win = true;
+                    } else if (childResult != Tablebase.WIN || !settled) {
+                        allLost = false;
+                    }
+                }
+                if (win || allLost) {
+                    result[index] = (byte) (win ? Tablebase.WIN : Tablebase.LOSS);
+                    plies[index] = (short) n;
+                    changed = true;
+                }
+            }
+            if (!changed && n > maxOutside) {
+                break;
+            }
+        }
+
+        byte[] table = new byte[size];
+        for (int index = 0; index < size; index++) {
+            int toMate = switch (result[index]) {
+                case Tablebase.WIN -> (plies[index] + 1) / 2;
+                case Tablebase.LOSS -> plies[index] / 2;
+                default -> 0;
+            };
+            if (toMate > MAX_MOVES) {
+                throw new IllegalStateException(material + " has a mate too long to store: " + toMate + " moves");
+            }
+            table[index] = (byte) (result[index] | toMate << 2);
+        }
+        return table;
+    }
+
+    /**
+     * Writes every table into folder, replacing any there
+     */
+    public static void write(Path folder) throws IOException {
+        Files.createDirectories(folder);
+        for (Map.Entry<Tablebase.Material, byte[]> table : generateAll().entrySet()) {
+            Files.write(folder.resolve(table.getKey().fileName()), table.getValue());
+        }
+    }
+
+    // builds the tables into a folder: <folder>
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("usage: TablebaseGenerator <folder>");
+            System.exit(2);
+        }
+        long start = System.nanoTime();
+        write(Path.of(args[0]));
+        System.out.printf("tables written in %.1f s%n", (System.nanoTime() - start) / 1e9);
+    }
+
+    // index of the position after a move in the same table, or its packed result negated if it left the table
+    private static int child(ChessBoard board, ChessGame.TeamColor toMove, Tablebase.Material material,
+                             Map<Tablebase.Material, byte[]> earlier) {
+        int located = Tablebase.locate(board, toMove);
+        if (located == Tablebase.DEAD) {
+            return -(1 + (Tablebase.DRAW << PLIES_BITS));
+        }
+        Tablebase.Material next = Tablebase.Material.values()[located >>> Tablebase.INDEX_BITS];
+        int index = located & (Tablebase.SIZE - 1);
+        if (next == material) {
+            return index;
+        }
+        byte[] table = earlier.get(next);
+        if (table == null) {
+            throw new IllegalStateException(material + " needs the " + next + " table first");
+        }
+        int entry = table[index] & 0xFF;
+        int moves = entry >>> 2;
+        int childPlies = switch (entry & 3) {
+            case Tablebase.WIN -> 2 * moves - 1;
+            case Tablebase.LOSS -> 2 * moves;
+            default -> 0;
+        };
+        return -(1 + ((entry & 3) << PLIES_BITS | childPlies));
+    }
+}
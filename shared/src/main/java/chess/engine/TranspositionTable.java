@@ -0,0 +1,138 @@
+package chess.engine;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-size table of search results keyed by position, shared by any number of search
+ * threads without locks.
+ * <p>
+ * Each entry is two longs in one array: the key xor the data, then the data. A reader
+ * accepts an entry only if the two words xor back to its key, so an entry torn by two
+ * threads writing at once is simply treated as a miss. The data word packs the best move,
+ * score, depth, bound type and the search generation that wrote it.
+ */
+public final class TranspositionTable {
+
+    public static final int EXACT = 0;
+    public static final int LOWER = 1;
+    public static final int UPPER = 2;
+
+    // data layout: move bits 0-14, bound 15-16, depth 17-23, score + 32768 in 24-39, generation 40-47
+    private static final int BOUND_SHIFT = 15;
+    private static final int DEPTH_SHIFT = 17;
+    private static final int SCORE_SHIFT = 24;
+    private static final int GENERATION_SHIFT = 40;
+
+    private final long[] table;
+    private final int mask;
+    private int generation;
+    // entries of older generations are invisible, see forget
+    private int floor;
+
+    /**
+     * @param megabytes memory to use, rounded down to a power of two number of entries
+     */
+    public TranspositionTable(int megabytes) {
+        if (megabytes < 1) {
+            throw new IllegalArgumentException("Table size must be at least 1 MB: " + megabytes);
+        }
+        long entries = Long.highestOneBit(megabytes * (1L << 20) / 16);
+        // array indexes are ints and each entry takes two slots
+        entries = Math.min(entries, 1L << 29);
+        this.table = new long[(int) entries * 2];
+        this.mask = (int) entries - 1;
+    }
+
+    public int entries() {
+        return mask + 1;
+    }
+
+    /**
+     * Starts a new search; entries from older searches are replaced first
+     */
+    public void newSearch() {
+        generation = (generation + 1) & 0xFF;
+        // after a forget, wrapping around would bring the entries from before it back
+        if (generation == 0 && floor != 0) {
+            clear();
+        }
+    }
+
+    /**
+     * Starts a new search that sees nothing stored before it, as if the table had been
+     * cleared: older entries are ignored by probe and replaced by store. Only when the
+     * generation wraps around, once every 256 searches, is the memory actually cleared.
+     */
+    public void forget() {
+        generation = (generation + 1) & 0xFF;
+        if (generation == 0) {
+            clear();
+        }
+        floor = generation;
+    }
+
+    public void clear() {
+        Arrays.fill(table, 0);
+        generation = 0;
+        floor = 0;
+    }
+
+    /**
+     * @return the data stored for key, or 0 if there is none
+     */
+    public long probe(long key) {
+        int index = index(key);
+        long data = current(index);
+        return data != 0 && (table[index] ^ data) == key ? data : 0;
+    }
+
+    public void store(long key, int move, int score, int depth, int bound) {
+        int index = index(key);
+        long oldData = current(index);
+        boolean sameKey = oldData != 0 && (table[index] ^ oldData) == key;
+        // keep a deeper result for the same position, or for another position from this search
+        if (oldData != 0 && depth < depth(oldData) && (sameKey || generation(oldData) == generation)) {
+            return;
+        }
+        if (move == 0 && sameKey) {
+            move = move(oldData);
+        }
+        long data = move
+                | (long) bound << BOUND_SHIFT
+                | (long) Math.min(depth, 127) << DEPTH_SHIFT
+                | (long) (score + 32768) << SCORE_SHIFT
+                | (long) generation << GENERATION_SHIFT;
+        table[index] = key ^ data;
+        table[index + 1] = data;
+    }
+
+    public static int move(long data) {
+        return (int) (data & 0x7FFF);
+    }
+
+    public static int bound(long data) {
+        return (int) (data >>> BOUND_SHIFT) & 3;
+    }
+
+    public static int depth(long data) {
+        return (int) (data >>> DEPTH_SHIFT) & 127;
+    }
+
+    public static int score(long data) {
+        return (int) ((data >>> SCORE_SHIFT) & 0xFFFF) - 32768;
+    }
+
+    private static int generation(long data) {
+        return (int) (data >>> GENERATION_SHIFT) & 0xFF;
+    }
+
+    // the data word at index, or 0 if it is from before the last forget
+    private long current(int index) {
+        long data = table[index + 1];
+        return generation(data) < floor ? 0 : data;
+    }
+
+    private int index(long key) {
+        return ((int) key & mask) << 1;
+    }
+}
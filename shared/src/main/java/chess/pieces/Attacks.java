@@ -0,0 +1,152 @@
+package chess.pieces;
+
+import chess.*;
+
+// answers "is this square attacked" by looking outward from the square instead of generating the
+// opponent's moves. knights, pawns and kings are one lookup in a table of attack masks indexed by square,
+// rooks, bishops and queens one lookup in the occupancy indexed magic tables (see Magics). the same masks
+// drive move generation: apart from pawns, a piece's pseudo legal moves are its attack mask minus its own side
+
+public class Attacks {
+    private static final int[][] KNIGHT = {
+            {1,2},{1,-2},{-1,2},{-1,-2},
+            {2,1},{2,-1},{-2,1},{-2,-1}
+    };
+    private static final int[][] KING = {
+            {-1,  1}, {-1, -1}, { 1,  1}, { 1, -1}, { 1, 0}, {-1, 0}, {0, 1}, {0, -1}
+    };
+
+    // squares attacked from each square by a knight, a king, and a white or black pawn
+    private static final long[] KNIGHT_ATTACKS = new long[64];
+    private static final long[] KING_ATTACKS = new long[64];
+    private static final long[][] PAWN_ATTACKS = new long[2][64];
+
+    static {
+        for (int square = 0; square < 64; square++) {
+            KNIGHT_ATTACKS[square] = offsets(square, KNIGHT);
+            KING_ATTACKS[square] = offsets(square, KING);
+            PAWN_ATTACKS[ChessGame.TeamColor.WHITE.ordinal()][square] = offsets(square, new int[][]{{1, -1}, {1, 1}});
+            PAWN_ATTACKS[ChessGame.TeamColor.BLACK.ordinal()][square] = offsets(square, new int[][]{{-1, -1}, {-1, 1}});
+        }
+    }
+
+    private static long offsets(int from, int[][] offsets) {
+        long mask = 0;
+        for (int[] offset : offsets) {
+            int r = Bitboards.row(from) + offset[0];
+            int c = Bitboards.column(from) + offset[1];
+            if (PieceMover.isInside(r, c)) {
+                mask |= Bitboards.bit(Bitboards.square(r, c));
+            }
+        }
+        return mask;
+    }
+
+    public static long knight(int square) {
+        return KNIGHT_ATTACKS[square];
+    }
+
+    public static long king(int square) {
+        return KING_ATTACKS[square];
+    }
+
+    // squares a pawn of the given color standing on square could capture on
+    public static long pawn(ChessGame.TeamColor color, int square) {
+        return PAWN_ATTACKS[color.ordinal()][square];
+    }
+
+    // squares a slider on square reaches given the occupied squares, including the first blocker on each ray
+    public static long rook(int square, long occupied) {
+        return Magics.rook(square, occupied);
+    }
+
+    public static long bishop(int square, long occupied) {
+        return Magics.bishop(square, occupied);
+    }
+
+    public static long queen(int square, long occupied) {
+        return Magics.rook(square, occupied) | Magics.bishop(square, occupied);
+    }
+
+    // squares strictly between two squares on a shared row, column or diagonal, and the whole line
+    // through both of them. both are 0 when the squares are not aligned
+    private static final long[][] BETWEEN = new long[64][64];
+    private static final long[][] LINE = new long[64][64];
+
+    static {
+        int[][] directions = {
+                {1,0}, {0,1},{-1,0},{0,-1}, {-1,  1}, {-1, -1}, { 1,  1}, { 1, -1}
+        };
+        for (int from = 0; from < 64; from++) {
+            for (int[] vector : directions) {
+                long full = Bitboards.bit(from);
+                full |= walk(from, vector[0], vector[1]) | walk(from, -vector[0], -vector[1]);
+                long between = 0;
+                int r = Bitboards.row(from) + vector[0];
+                int c = Bitboards.column(from) + vector[1];
+                while (PieceMover.isInside(r, c)) {
+                    int to = Bitboards.square(r, c);
+                    BETWEEN[from][to] = between;
+                    LINE[from][to] = full;
+                    between |= Bitboards.bit(to);
+                    r += vector[0];
+                    c += vector[1];
+                }
+            }
+        }
+    }
+
+    private static long walk(int from, int dr, int dc) {
+        long mask = 0;
+        int r = Bitboards.row(from) + dr;
+        int c = Bitboards.column(from) + dc;
+        while (PieceMover.isInside(r, c)) {
+            mask |= Bitboards.bit(Bitboards.square(r, c));
+            r += dr;
+            c += dc;
+        }
+        return mask;
+    }
+
+    public static long between(int from, int to) {
+        return BETWEEN[from][to];
+    }
+
+    public static long line(int from, int to) {
+        return LINE[from][to];
+    }
+
+    public static boolean isSquareAttacked(ChessBoard board, int square, ChessGame.TeamColor by) {
+        return attackers(board, square, by, board.occupied(), true) != 0;
+    }
+
+    // mask of every piece of the given color attacking square
+    public static long attackers(ChessBoard board, int square, ChessGame.TeamColor by) {
+        return attackers(board, square, by, board.occupied(), false);
+    }
+
+    // same as above with a custom occupancy, so a caller can look through a piece that is about to move
+    public static long attackers(ChessBoard board, int square, ChessGame.TeamColor by, long occupied) {
+        return attackers(board, square, by, occupied, false);
+    }
+
+    private static long attackers(ChessBoard board, int square, ChessGame.TeamColor by, long occupied,
+                                  boolean firstOnly) {
+        // a pawn of color by attacks square exactly when a pawn of the other color on square would attack it
+        ChessGame.TeamColor other = by == ChessGame.TeamColor.WHITE ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+        long found = pawn(other, square) & board.pieces(by, ChessPiece.PieceType.PAWN);
+        found |= KNIGHT_ATTACKS[square] & board.pieces(by, ChessPiece.PieceType.KNIGHT);
+        found |= KING_ATTACKS[square] & board.pieces(by, ChessPiece.PieceType.KING);
+        if (firstOnly && found != 0) {
+            return found;
+        }
+
+        long queens = board.pieces(by, ChessPiece.PieceType.QUEEN);
+        found |= Magics.rook(square, occupied) & (board.pieces(by, ChessPiece.PieceType.ROOK) | queens);
+        if (firstOnly && found != 0) {
+            return found;
+        }
+        found |= Magics.bishop(square, occupied) & (board.pieces(by, ChessPiece.PieceType.BISHOP) | queens);
+        return found;
+    }
+}
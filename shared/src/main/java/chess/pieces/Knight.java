@@ -2,15 +2,16 @@ package chess.pieces;
 
 import chess.*;
 import java.util.Collection;
-import java.util.Set;
+import java.util.HashSet;
 
 public class Knight {
-    private static final int[][] DIAGONALS = {
-            {1,2},{1,-2},{-1,2},{-1,-2},
-            {2,1},{2,-1},{-2,1},{-2,-1}
-    };
     public static Collection<ChessMove> getKnightMoves(ChessBoard board, ChessPosition start, ChessGame.TeamColor color) {
-        Set<ChessMove> moves = PieceMover.getLegalMove(board, start, color, DIAGONALS, false);
-        return moves;
+        MoveList moves = new MoveList();
+        generate(board, Bitboards.square(start), color, moves);
+        return moves.toChessMoves(new HashSet<>());
     }
-}
\ No newline at end of file
+
+    public static void generate(ChessBoard board, int start, ChessGame.TeamColor color, MoveList moves) {
+        PieceMover.addTargets(start, Attacks.knight(start) & ~board.occupancy(color), moves);
+    }
+}
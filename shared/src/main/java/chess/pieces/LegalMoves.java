@@ -0,0 +1,302 @@
+package chess.pieces;
+
+import chess.*;
+
+// generates only legal moves. the checking pieces and the pinned pieces are worked out once for the
+// position, then each pseudo legal move is kept or dropped with a couple of mask tests instead of
+// playing it out and re-testing for check
+
+public class LegalMoves {
+
+    // legal moves of the piece on square for its own color, appended to moves
+    public static void generate(ChessBoard board, int square, MoveList moves) {
+        ChessPiece piece = board.getPiece(square);
+        if (piece == null) {
+            return;
+        }
+        ChessGame.TeamColor color = piece.getTeamColor();
+        long kings = board.pieces(color, ChessPiece.PieceType.KING);
+        if (Long.bitCount(kings) != 1) {
+            bruteForce(board, square, piece, kings, moves);
+            return;
+        }
+        int king = Long.numberOfTrailingZeros(kings);
+        long checkers = Attacks.attackers(board, king, opponent(color));
+        long pinned = pinned(board, king, color);
+        addPieceMoves(board, square, piece, king, checkers, pinned, moves);
+    }
+
+    // legal moves of every piece of the given color, appended to moves
+    public static void generate(ChessBoard board, ChessGame.TeamColor color, MoveList moves) {
+        long kings = board.pieces(color, ChessPiece.PieceType.KING);
+        long friends = board.occupancy(color);
+        if (Long.bitCount(kings) != 1) {
+            while (friends != 0) {
+                int square = Long.numberOfTrailingZeros(friends);
+                friends &= friends - 1;
+                bruteForce(board, square, board.getPiece(square), kings, moves);
+            }
+            return;
+        }
+        int king = Long.numberOfTrailingZeros(kings);
+        long checkers = Attacks.attackers(board, king, opponent(color));
+        long pinned = pinned(board, king, color);
+
+        // in double check only the king can move
+        if (Long.bitCount(checkers) > 1) {
+            friends = kings;
+        }
+        while (friends != 0) {
+            int square = Long.numberOfTrailingZeros(friends);
+            friends &= friends - 1;
+            addPieceMoves(board, square, board.getPiece(square), king, checkers, pinned, moves);
+        }
+    }
+
+    // whether color has any legal move, stopping at the first one found. king moves are tried first, then
+    // the other pieces with a capture ending the search at once. only target masks are built; scratch is
+    // cleared and filled only on boards without exactly one king, which fall back to generating moves
+    public static boolean hasLegalMove(ChessBoard board, ChessGame.TeamColor color, MoveList scratch) {
+        long kings = board.pieces(color, ChessPiece.PieceType.KING);
+        if (Long.bitCount(kings) != 1) {
+            MoveList moves = scratch;
+            moves.clear();
+            long friends = board.occupancy(color);
+            while (friends != 0) {
+                int square = Long.numberOfTrailingZeros(friends);
+                friends &= friends - 1;
+                bruteForce(board, square, board.getPiece(square), kings, moves);
+                if (!moves.isEmpty()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        ChessGame.TeamColor enemy = opponent(color);
+        int king = Long.numberOfTrailingZeros(kings);
+        long own = board.occupancy(color);
+        long enemies = board.occupancy(enemy);
+
+        long steps = Attacks.king(king) & ~own;
+        long withoutKing = board.occupied() & ~kings;
+        if (safeStep(board, steps & enemies, enemy, withoutKing)
+                || safeStep(board, steps & ~enemies, enemy, withoutKing)) {
+            return true;
+        }
+
+        long checkers = Attacks.attackers(board, king, enemy);
+        if (Long.bitCount(checkers) > 1) {
+            return false;
+        }
+        long allowed = -1L;
+        if (checkers != 0) {
+            allowed = checkers | Attacks.between(king, Long.numberOfTrailingZeros(checkers));
+        }
+        long pinned = pinned(board, king, color);
+
+        boolean quiet = false;
+        long friends = own & ~kings;
+        while (friends != 0) {
+            int square = Long.numberOfTrailingZeros(friends);
+            friends &= friends - 1;
+            long targets = reach(board, square, board.getPiece(square)) & ~own & allowed;
+            if ((pinned & Bitboards.bit(square)) != 0) {
+                targets &= Attacks.line(king, square);
+            }
+            if ((targets & enemies) != 0) {
+                return true;
+            }
+            quiet |= targets != 0;
+        }
+        return quiet;
+    }
+
+    // whether the king can step to any of targets without being attacked there, looking through the
+    // king's own square since it will have left it
+    private static boolean safeStep(ChessBoard board, long targets, ChessGame.TeamColor enemy, long withoutKing) {
+        while (targets != 0) {
+            int to = Long.numberOfTrailingZeros(targets);
+            targets &= targets - 1;
+            if (Attacks.attackers(board, to, enemy, withoutKing) == 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // whether one packed move is legal for the piece on its start square, without generating the piece's
+    // other moves. the move must be reachable by the piece, land on an empty or enemy square, name a
+    // promotion exactly when a pawn reaches the last rank, and not leave the mover's king attacked
+    public static boolean isLegal(ChessBoard board, int move) {
+        int from = Moves.from(move);
+        int to = Moves.to(move);
+        ChessPiece piece = board.getPiece(from);
+        if (piece == null) {
+            return false;
+        }
+        ChessGame.TeamColor color = piece.getTeamColor();
+        if ((board.occupancy(color) & Bitboards.bit(to)) != 0) {
+            return false;
+        }
+        if ((reach(board, from, piece) & Bitboards.bit(to)) == 0 || !promotionFits(piece, to, move)) {
+            return false;
+        }
+
+        // play it and look outward from the king, the same test the brute force filter uses
+        board.makeMove(from, to, Moves.promotion(move));
+        long kings = board.pieces(color, ChessPiece.PieceType.KING);
+        boolean safe = kings == 0
+                || !Attacks.isSquareAttacked(board, Long.numberOfTrailingZeros(kings), opponent(color));
+        board.unmakeMove();
+        return safe;
+    }
+
+    // squares the piece on from could move to on an empty-enough board, before own pieces are excluded
+    private static long reach(ChessBoard board, int from, ChessPiece piece) {
+        long occupied = board.occupied();
+        return switch (piece.getPieceType()) {
+            case KING -> Attacks.king(from);
+            case KNIGHT -> Attacks.knight(from);
+            case ROOK -> Attacks.rook(from, occupied);
+            case BISHOP -> Attacks.bishop(from, occupied);
+            case QUEEN -> Attacks.queen(from, occupied);
+            case PAWN -> pawnReach(board, from, piece.getTeamColor(), occupied);
+        };
+    }
+
+    private static long pawnReach(ChessBoard board, int from, ChessGame.TeamColor color, long occupied) {
+        long targets = Attacks.pawn(color, from) & board.occupancy(opponent(color));
+        boolean white = color == ChessGame.TeamColor.WHITE;
+        int row = Bitboards.row(from);
+        int one = from + (white ? 8 : -8);
+        if (one < 0 || one > 63 || (occupied & Bitboards.bit(one)) != 0) {
+            return targets;
+        }
+        targets |= Bitboards.bit(one);
+        int two = from + (white ? 16 : -16);
+        if (row == (white ? 2 : 7) && (occupied & Bitboards.bit(two)) == 0) {
+            targets |= Bitboards.bit(two);
+        }
+        return targets;
+    }
+
+    private static boolean promotionFits(ChessPiece piece, int to, int move) {
+        boolean lastRank = piece.getPieceType() == ChessPiece.PieceType.PAWN
+                && Bitboards.row(to) == (piece.getTeamColor() == ChessGame.TeamColor.WHITE ? 8 : 1);
+        if (!lastRank) {
+            return !Moves.isPromotion(move);
+        }
+        ChessPiece.PieceType promotion = Moves.promotion(move);
+        return promotion != null && promotion != ChessPiece.PieceType.KING && promotion != ChessPiece.PieceType.PAWN;
+    }
+
+    private static void addPieceMoves(ChessBoard board, int square, ChessPiece piece, int king, long checkers,
+                                      long pinned, MoveList moves) {
+        int first = moves.size();
+        piece.pieceMoves(board, square, moves);
+        ChessGame.TeamColor enemy = opponent(piece.getTeamColor());
+
+        if (square == king) {
+            // the king may not step onto an attacked square, and it must not shield that square from a
+            // slider it is moving away from, so look through the king's own square
+            long occupied = board.occupied() & ~Bitboards.bit(king);
+            filter(moves, first, -1L, board, enemy, occupied);
+            return;
+        }
+
+        long allowed = -1L;
+        int checkCount = Long.bitCount(checkers);
+        if (checkCount > 1) {
+            moves.truncate(first);
+            return;
+        }
+        if (checkCount == 1) {
+            // capture the checker or step between it and the king
+            int checker = Long.numberOfTrailingZeros(checkers);
+            allowed = checkers | Attacks.between(king, checker);
+        }
+        if ((pinned & Bitboards.bit(square)) != 0) {
+            allowed &= Attacks.line(king, square);
+        }
+        if (allowed != -1L) {
+            filter(moves, first, allowed, null, enemy, 0);
+        }
+    }
+
+    // keeps moves from index first onward whose target is in allowed, and when a board is given whose
+    // target is not attacked by enemy under the given occupancy
+    private static void filter(MoveList moves, int first, long allowed, ChessBoard board,
+                               ChessGame.TeamColor enemy, long occupied) {
+        int kept = first;
+        for (int i = first; i < moves.size(); i++) {
+            int move = moves.get(i);
+            int to = Moves.to(move);
+            if ((allowed & Bitboards.bit(to)) == 0) {
+                continue;
+            }
+            if (board != null && Attacks.attackers(board, to, enemy, occupied) != 0) {
+                continue;
+            }
+            moves.set(kept++, move);
+        }
+        moves.truncate(kept);
+    }
+
+    // pieces of color that are the only thing standing between their king and an enemy slider
+    private static long pinned(ChessBoard board, int king, ChessGame.TeamColor color) {
+        ChessGame.TeamColor enemy = opponent(color);
+        long queens = board.pieces(enemy, ChessPiece.PieceType.QUEEN);
+        long straight = board.pieces(enemy, ChessPiece.PieceType.ROOK) | queens;
+        long diagonal = board.pieces(enemy, ChessPiece.PieceType.BISHOP) | queens;
+        long occupied = board.occupied();
+        long own = board.occupancy(color);
+        long pinned = 0;
+
+        long sliders = straight | diagonal;
+        while (sliders != 0) {
+            int slider = Long.numberOfTrailingZeros(sliders);
+            sliders &= sliders - 1;
+
+            boolean sameLine = Bitboards.row(slider) == Bitboards.row(king)
+                    || Bitboards.column(slider) == Bitboards.column(king);
+            long kind = sameLine ? straight : diagonal;
+            if (Attacks.line(king, slider) == 0 || (kind & Bitboards.bit(slider)) == 0) {
+                continue;
+            }
+            long blockers = Attacks.between(king, slider) & occupied;
+            if (Long.bitCount(blockers) == 1 && (blockers & own) != 0) {
+                pinned |= blockers;
+            }
+        }
+        return pinned;
+    }
+
+    // boards without exactly one king of the moving color get the old play-it-out treatment, testing
+    // the lowest king the same way ChessGame.isInCheck does
+    private static void bruteForce(ChessBoard board, int square, ChessPiece piece, long kings, MoveList moves) {
+        int first = moves.size();
+        piece.pieceMoves(board, square, moves);
+        if (kings == 0) {
+            return;
+        }
+        ChessGame.TeamColor enemy = opponent(piece.getTeamColor());
+        int kept = first;
+        for (int i = first; i < moves.size(); i++) {
+            int move = moves.get(i);
+            board.makeMove(Moves.from(move), Moves.to(move), Moves.promotion(move));
+            long after = board.pieces(piece.getTeamColor(), ChessPiece.PieceType.KING);
+            boolean safe = after == 0
+                    || !Attacks.isSquareAttacked(board, Long.numberOfTrailingZeros(after), enemy);
+            board.unmakeMove();
+            if (safe) {
+                moves.set(kept++, move);
+            }
+        }
+        moves.truncate(kept);
+    }
+
+    private static ChessGame.TeamColor opponent(ChessGame.TeamColor color) {
+        return color == ChessGame.TeamColor.WHITE ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+    }
+}
@@ -0,0 +1,139 @@
+package chess.pieces;
+
+import chess.Bitboards;
+
+import java.util.SplittableRandom;
+
+// magic bitboard tables for rook and bishop attacks. for each square the pieces that can block the slider
+// (its rays without the board edge) are multiplied by a "magic" number so that their bits land in the top
+// of the product, which then indexes a table holding the attack set for that exact blocker arrangement.
+// a slider's attacks are then one multiply, one shift and one array read.
+//
+// the magics are searched for when the class loads. the random generator has a fixed seed, so every run
+// finds the same numbers
+
+final class Magics {
+
+    private static final int[][] STRAIGHT = {
+            {1,0}, {0,1},{-1,0},{0,-1}
+    };
+    private static final int[][] DIAGONAL = {
+            {-1,  1}, {-1, -1}, { 1,  1}, { 1, -1}
+    };
+
+    private static final long[] ROOK_MASK = new long[64];
+    private static final long[] ROOK_MAGIC = new long[64];
+    private static final int[] ROOK_SHIFT = new int[64];
+    private static final long[][] ROOK_TABLE = new long[64][];
+
+    private static final long[] BISHOP_MASK = new long[64];
+    private static final long[] BISHOP_MAGIC = new long[64];
+    private static final int[] BISHOP_SHIFT = new int[64];
+    private static final long[][] BISHOP_TABLE = new long[64][];
+
+    static {
+        SplittableRandom random = new SplittableRandom(0x6D61676963L);
+        for (int square = 0; square < 64; square++) {
+            init(square, STRAIGHT, ROOK_MASK, ROOK_MAGIC, ROOK_SHIFT, ROOK_TABLE, random);
+            init(square, DIAGONAL, BISHOP_MASK, BISHOP_MAGIC, BISHOP_SHIFT, BISHOP_TABLE, random);
+        }
+    }
+
+    private Magics() { }
+
+    static long rook(int square, long occupied) {
+        int index = (int) (((occupied & ROOK_MASK[square]) * ROOK_MAGIC[square]) >>> ROOK_SHIFT[square]);
+        return ROOK_TABLE[square][index];
+    }
+
+    static long bishop(int square, long occupied) {
+        int index = (int) (((occupied & BISHOP_MASK[square]) * BISHOP_MAGIC[square]) >>> BISHOP_SHIFT[square]);
+        return BISHOP_TABLE[square][index];
+    }
+
+    private static void init(int square, int[][] directions, long[] masks, long[] magics, int[] shifts,
+                             long[][] tables, SplittableRandom random) {
+        long mask = relevantBlockers(square, directions);
+        int bits = Long.bitCount(mask);
+        int size = 1 << bits;
+
+        // every subset of the mask, and the attacks a slider sees with exactly those blockers
+        long[] blockers = new long[size];
+        long[] attacks = new long[size];
+        long subset = 0;
+        for (int i = 0; i < size; i++) {
+            blockers[i] = subset;
+            attacks[i] = slowAttacks(square, subset, directions);
+            subset = (subset - mask) & mask;
+        }
+
+        long[] table = new long[size];
+        int[] usedBy = new int[size];
+        int attempt = 0;
+        while (true) {
+            attempt++;
+            // few set bits make good magics
+            long magic = random.nextLong() & random.nextLong() & random.nextLong();
+            if (Long.bitCount((mask * magic) & 0xFF00000000000000L) < 6) {
+                continue;
+            }
+            if (fits(magic, 64 - bits, blockers, attacks, table, usedBy, attempt)) {
+                masks[square] = mask;
+                magics[square] = magic;
+                shifts[square] = 64 - bits;
+                tables[square] = table;
+                return;
+            }
+        }
+    }
+
+    // fills table for this magic, failing on the first collision between different attack sets.
+    // usedBy records which attempt wrote each slot so the table does not need clearing between attempts
+    private static boolean fits(long magic, int shift, long[] blockers, long[] attacks, long[] table, int[] usedBy,
+                                int attempt) {
+        for (int i = 0; i < blockers.length; i++) {
+            int index = (int) ((blockers[i] * magic) >>> shift);
+            if (usedBy[index] != attempt) {
+                usedBy[index] = attempt;
+                table[index] = attacks[i];
+            } else if (table[index] != attacks[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // squares on the slider's rays that can block it. the last square of each ray never matters
+    private static long relevantBlockers(int square, int[][] directions) {
+        long mask = 0;
+        for (int[] vector : directions) {
+            int r = Bitboards.row(square) + vector[0];
+            int c = Bitboards.column(square) + vector[1];
+            while (PieceMover.isInside(r + vector[0], c + vector[1])) {
+                mask |= Bitboards.bit(Bitboards.square(r, c));
+                r += vector[0];
+                c += vector[1];
+            }
+        }
+        return mask;
+    }
+
+    // ray walk used only to build the tables
+    private static long slowAttacks(int square, long occupied, int[][] directions) {
+        long attacks = 0;
+        for (int[] vector : directions) {
+            int r = Bitboards.row(square) + vector[0];
+            int c = Bitboards.column(square) + vector[1];
+            while (PieceMover.isInside(r, c)) {
+                long bit = Bitboards.bit(Bitboards.square(r, c));
+                attacks |= bit;
+                if ((occupied & bit) != 0) {
+                    break;
+                }
+                r += vector[0];
+                c += vector[1];
+            }
+        }
+        return attacks;
+    }
+}
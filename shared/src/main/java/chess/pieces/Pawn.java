@@ -1,9 +1,7 @@
-
 package chess.pieces;
 
 import chess.*;
 import java.util.HashSet;
-import java.util.Set;
 import java.util.Collection;
 
 //pawn does not use the pieceMover helper directly. Due to more complex movements it helps itself move while using
@@ -11,13 +9,27 @@ import java.util.Collection;
 
 public class Pawn {
 
+    private static final ChessPiece.PieceType[] PROMOTIONS = {
+            ChessPiece.PieceType.QUEEN,
+            ChessPiece.PieceType.ROOK,
+            ChessPiece.PieceType.BISHOP,
+            ChessPiece.PieceType.KNIGHT
+    };
+
     public static Collection<ChessMove> getPawnMoves(ChessBoard board,
                                                      ChessPosition start,
                                                      ChessGame.TeamColor color) {
-        Set<ChessMove> moves = new HashSet<>();
+        MoveList moves = new MoveList();
+        generate(board, Bitboards.square(start), color, moves);
+        return moves.toChessMoves(new HashSet<>());
+    }
+
+    public static void generate(ChessBoard board, int start, ChessGame.TeamColor color, MoveList moves) {
+        long all = board.occupied();
+        long enemy = all & ~board.occupancy(color);
 
-        int r = start.getRow();
-        int c = start.getColumn();
+        int r = Bitboards.row(start);
+        int c = Bitboards.column(start);
 
         //dir based on color will move the piece up or down the board
         int dir;
@@ -44,50 +56,37 @@ public class Pawn {
         }
 
         //checks to see if the square directly in front is clear
-        ChessPosition one = pos(r + dir, c); // r+dir moves it up or down
-        if (PieceMover.isInside(one.getRow(), one.getColumn()) && board.getPiece(one) == null){
-            addMoveOrPromotion(moves, start, one, promoRank);
+        if (PieceMover.isInside(r + dir, c) && !isSet(all, r + dir, c)){ // r+dir moves it up or down
+            addMoveOrPromotion(moves, start, Bitboards.square(r + dir, c), promoRank);
             // if the piece mover is on the starting rank it will check the second square in front of it
-            if (r == startRank) {
-                ChessPosition two = pos(r + 2 * dir, c);
-                if (PieceMover.isInside(two.getRow(), two.getColumn()) && board.getPiece(two) == null) {
-                    moves.add(new ChessMove(start, two, null));
-                }
+            if (r == startRank && PieceMover.isInside(r + 2 * dir, c) && !isSet(all, r + 2 * dir, c)) {
+                moves.add(Moves.encode(start, Bitboards.square(r + 2 * dir, c)));
             }
         }
-        // this will check the diagonal positions to see if there is a piece that can be captured or not
-        for (int dc : new int[]{-1, 1}) {
-            ChessPosition diag = pos(r + dir, c + dc);
-            if (!PieceMover.isInside(diag.getRow(), diag.getColumn())) {
-                continue;
-            }
-            ChessPiece target = board.getPiece(diag);
-            if (target != null && target.getTeamColor() != color) {
-                addMoveOrPromotion(moves, start, diag, promoRank);
-            }
+        // the diagonal captures come straight from the precomputed pawn attack table
+        long captures = Attacks.pawn(color, start) & enemy;
+        while (captures != 0) {
+            addMoveOrPromotion(moves, start, Long.numberOfTrailingZeros(captures), promoRank);
+            captures &= captures - 1;
         }
-
-        return moves;
     }
 
     // --- helpers ---
-    //helps with the checkers
-    private static ChessPosition pos(int row, int col) {
-        return new ChessPosition(row, col);
+    private static boolean isSet(long mask, int row, int col) {
+        return (mask & Bitboards.bit(Bitboards.square(row, col))) != 0;
     }
 
     // main moving function for the pawn
-    private static void addMoveOrPromotion(Set<ChessMove> moves,
-                                           ChessPosition from,
-                                           ChessPosition to,
+    private static void addMoveOrPromotion(MoveList moves,
+                                           int from,
+                                           int to,
                                            int promoRank) {
-        if (to.getRow() == promoRank) {
-            moves.add(new ChessMove(from, to, ChessPiece.PieceType.QUEEN));
-            moves.add(new ChessMove(from, to, ChessPiece.PieceType.ROOK));
-            moves.add(new ChessMove(from, to, ChessPiece.PieceType.BISHOP));
-            moves.add(new ChessMove(from, to, ChessPiece.PieceType.KNIGHT));
+        if (Bitboards.row(to) == promoRank) {
+            for (ChessPiece.PieceType promotion : PROMOTIONS) {
+                moves.add(Moves.encode(from, to, promotion));
+            }
         } else {
-            moves.add(new ChessMove(from, to, null));
+            moves.add(Moves.encode(from, to));
         }
     }
 }
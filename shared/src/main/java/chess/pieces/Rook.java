@@ -2,14 +2,17 @@ package chess.pieces;
 
 import chess.*;
 import java.util.Collection;
-import java.util.Set;
+import java.util.HashSet;
 
 public class Rook {
-    private static final int[][] DIAGONALS = {
-            {1,0}, {0,1},{-1,0},{0,-1}
-    };
     public static Collection<ChessMove> getRookMoves(ChessBoard board, ChessPosition start, ChessGame.TeamColor color) {
-        Set<ChessMove> moves = PieceMover.getLegalMove(board, start, color, DIAGONALS, true);
-        return moves;
+        MoveList moves = new MoveList();
+        generate(board, Bitboards.square(start), color, moves);
+        return moves.toChessMoves(new HashSet<>());
+    }
+
+    public static void generate(ChessBoard board, int start, ChessGame.TeamColor color, MoveList moves) {
+        long targets = Attacks.rook(start, board.occupied()) & ~board.occupancy(color);
+        PieceMover.addTargets(start, targets, moves);
     }
 }
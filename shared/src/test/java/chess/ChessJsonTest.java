@@ -0,0 +1,38 @@
+package chess;
+
+import com.google.gson.Gson;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class ChessJsonTest {
+
+    @Test
+    @DisplayName("Same JSON as default Gson")
+    public void sameJsonAsDefault() {
+        ChessGame game = Fen.read("n1n5/PPPk4/8/8/8/8/4Kppp/5N1N b - - 0 1");
+        ChessMove promotion = new ChessMove(new ChessPosition(7, 1), new ChessPosition(8, 2), ChessPiece.PieceType.QUEEN);
+        ChessMove plain = new ChessMove(new ChessPosition(2, 5), new ChessPosition(3, 5), null);
+
+        Gson plainGson = new Gson();
+        Gson chessGson = ChessJson.gson();
+        for (Object value : new Object[]{game, promotion, plain}) {
+            Assertions.assertEquals(plainGson.toJson(value), chessGson.toJson(value));
+        }
+    }
+
+    @Test
+    @DisplayName("Reading returns shared instances")
+    public void readsSharedInstances() {
+        Gson gson = ChessJson.gson();
+        ChessGame game = gson.fromJson(gson.toJson(new ChessGame()), ChessGame.class);
+        Assertions.assertEquals(new ChessGame(), game);
+        Assertions.assertSame(ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN),
+                game.getBoard().getPiece(ChessPosition.of(2, 3)));
+
+        ChessMove move = ChessMove.of(ChessPosition.of(7, 1), ChessPosition.of(8, 2), ChessPiece.PieceType.KNIGHT);
+        ChessMove read = gson.fromJson(gson.toJson(move), ChessMove.class);
+        Assertions.assertSame(move, read);
+        Assertions.assertSame(ChessPosition.of(8, 2), read.getEndPosition());
+    }
+}
@@ -0,0 +1,74 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class CodecTest {
+
+    @Test
+    @DisplayName("FEN and packed bytes round trip through random games")
+    public void roundTrips() throws InvalidMoveException {
+        Random random = new Random(5);
+        for (Perft.Position position : Perft.REFERENCE) {
+            ChessGame game = ChessGame.fromFen(position.fen());
+            Assertions.assertEquals(position.fen(), game.toFen());
+            for (int ply = 0; ply < 60; ply++) {
+                assertRoundTrip(game);
+                List<ChessMove> moves = new ArrayList<>(game.allValidMoves(game.getTeamTurn()));
+                if (moves.isEmpty()) {
+                    break;
+                }
+                game.makeMove(moves.get(random.nextInt(moves.size())));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Packed bytes keep game over and winner")
+    public void keepsGameState() {
+        ChessGame game = new ChessGame();
+        game.setGameOver(true);
+        game.setWinner(ChessGame.TeamColor.BLACK);
+        ChessGame read = ChessGame.fromBytes(game.toBytes());
+        Assertions.assertTrue(read.isGameOver());
+        Assertions.assertEquals(ChessGame.TeamColor.BLACK, read.getWinner());
+        Assertions.assertEquals(PackedPosition.SIZE, game.toBytes().length);
+        Assertions.assertEquals("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR", game.getBoard().toFen());
+    }
+
+    @Test
+    @DisplayName("Bad input is rejected")
+    public void rejectsBadInput() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ChessGame.fromFen("8/8/8/8/8/8/8 w - - 0 1"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ChessGame.fromFen("9/8/8/8/8/8/8/8 w - - 0 1"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ChessGame.fromFen("8/8/8/8/8/8/8/7x w - - 0 1"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ChessGame.fromFen("8/8/8/8/8/8/8/8 x - - 0 1"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ChessGame.fromBytes(new byte[24]));
+
+        byte[] badPiece = new byte[PackedPosition.SIZE];
+        badPiece[7] = 1;
+        badPiece[8] = 12;
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ChessGame.fromBytes(badPiece));
+
+        ChessBoard full = new ChessBoard();
+        for (int square = 0; square < 33; square++) {
+            full.addPiece(Bitboards.position(square), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN));
+        }
+        Assertions.assertThrows(IllegalArgumentException.class, full::toBytes);
+    }
+
+    private static void assertRoundTrip(ChessGame game) {
+        ChessGame fromFen = ChessGame.fromFen(game.toFen());
+        ChessGame fromBytes = ChessGame.fromBytes(game.toBytes());
+        Assertions.assertEquals(game, fromFen);
+        Assertions.assertEquals(game, fromBytes);
+        Assertions.assertEquals(game.getBoard(), ChessBoard.fromFen(game.getBoard().toFen()));
+        Assertions.assertEquals(game.getBoard(), ChessBoard.fromBytes(game.getBoard().toBytes()));
+        Assertions.assertEquals(game.getZobristKey(), fromBytes.getZobristKey());
+    }
+}
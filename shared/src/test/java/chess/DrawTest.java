@@ -0,0 +1,103 @@
+package chess;
+
+import com.google.gson.Gson;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class DrawTest {
+
+    @Test
+    @DisplayName("Shuffling knights repeat the start position")
+    public void threefoldRepetition() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        for (int round = 0; round < 2; round++) {
+            Assertions.assertEquals(ChessGame.Outcome.NORMAL, game.getOutcome());
+            shuffle(game);
+        }
+        Assertions.assertTrue(game.isThreefoldRepetition());
+        Assertions.assertEquals(ChessGame.Outcome.THREEFOLD_REPETITION, game.getOutcome());
+        Assertions.assertTrue(game.getOutcome().isGameOver());
+        Assertions.assertEquals(8, game.getHalfmoveClock());
+
+        game.undoMove();
+        Assertions.assertFalse(game.isThreefoldRepetition());
+        game.redoMove();
+        Assertions.assertTrue(game.isThreefoldRepetition());
+    }
+
+    @Test
+    @DisplayName("A pawn move resets the clock and the repetition window")
+    public void irreversibleMove() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        shuffle(game);
+        game.makeMove(TestMoves.move(2, 5, 4, 5));
+        Assertions.assertEquals(0, game.getHalfmoveClock());
+        game.makeMove(TestMoves.move(7, 5, 5, 5));
+        shuffle(game);
+        Assertions.assertFalse(game.isThreefoldRepetition());
+        shuffle(game);
+        Assertions.assertTrue(game.isThreefoldRepetition());
+
+        game.goToPly(4);
+        Assertions.assertEquals(4, game.getHalfmoveClock());
+    }
+
+    @Test
+    @DisplayName("Repetition is found again after a JSON round trip")
+    public void afterSerialization() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        shuffle(game);
+        shuffle(game);
+        Gson gson = new Gson();
+        ChessGame read = gson.fromJson(gson.toJson(game), ChessGame.class);
+        Assertions.assertEquals(ChessGame.Outcome.THREEFOLD_REPETITION, read.getOutcome());
+        Assertions.assertEquals(game.getHalfmoveClock(), read.getHalfmoveClock());
+        Assertions.assertEquals(game, read);
+    }
+
+    @Test
+    @DisplayName("setBoard and setTeamTurn keep the clock and the repetition window")
+    public void throughSetters() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        shuffle(game);
+        game.setBoard(new ChessBoard(game.getBoard()));
+        game.setTeamTurn(game.getTeamTurn());
+        Assertions.assertEquals(4, game.getHalfmoveClock());
+        shuffle(game);
+        Assertions.assertEquals(ChessGame.Outcome.THREEFOLD_REPETITION, game.getOutcome());
+
+        game.resetHistory();
+        Assertions.assertEquals(0, game.getHalfmoveClock());
+        Assertions.assertEquals(ChessGame.Outcome.NORMAL, game.getOutcome());
+    }
+
+    @Test
+    @DisplayName("Fifty moves without a capture or pawn move draw, unless the last one mates")
+    public void fiftyMoveRule() throws InvalidMoveException {
+        ChessGame game = ChessGame.fromFen("4k3/8/8/8/8/8/8/R3K3 w - - 99 80");
+        Assertions.assertEquals(99, game.getHalfmoveClock());
+        Assertions.assertEquals(ChessGame.Outcome.NORMAL, game.getOutcome());
+        game.makeMove(TestMoves.move(1, 1, 2, 1));
+        Assertions.assertEquals(ChessGame.Outcome.FIFTY_MOVE_RULE, game.getOutcome());
+        Assertions.assertEquals("4k3/8/8/8/8/8/R7/4K3 b - - 100 1", game.toFen());
+
+        ChessGame mate = ChessGame.fromFen("4k3/R7/4K3/8/8/8/8/8 w - - 99 80");
+        mate.makeMove(TestMoves.move(7, 1, 8, 1));
+        Assertions.assertEquals(ChessGame.Outcome.CHECKMATE, mate.getOutcome());
+        Assertions.assertEquals(100, ChessGame.fromBytes(mate.toBytes()).getHalfmoveClock());
+    }
+
+    // knights out and back for both sides, four plies that return to the same position
+    private static void shuffle(ChessGame game) throws InvalidMoveException {
+        boolean white = game.getTeamTurn() == ChessGame.TeamColor.WHITE;
+        int home = white ? 1 : 8;
+        int out = white ? 3 : 6;
+        int away = white ? 6 : 3;
+        int awayHome = white ? 8 : 1;
+        game.makeMove(TestMoves.move(home, 2, out, 3));
+        game.makeMove(TestMoves.move(awayHome, 2, away, 3));
+        game.makeMove(TestMoves.move(out, 3, home, 2));
+        game.makeMove(TestMoves.move(away, 3, awayHome, 2));
+    }
+}
@@ -0,0 +1,124 @@
+package chess;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParser;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class HistoryTest {
+
+    @Test
+    @DisplayName("Undo and redo walk back and forth through a game")
+    public void undoRedo() throws InvalidMoveException {
+        Random random = new Random(9);
+        for (Perft.Position position : Perft.REFERENCE) {
+            ChessGame game = Fen.read(position.fen());
+            List<ChessGame> snapshots = new ArrayList<>();
+            List<ChessMove> played = new ArrayList<>();
+            snapshots.add(Fen.read(game.toFen()));
+            for (int ply = 0; ply < 50; ply++) {
+                List<ChessMove> moves = new ArrayList<>(game.allValidMoves(game.getTeamTurn()));
+                if (moves.isEmpty()) {
+                    break;
+                }
+                ChessMove move = moves.get(random.nextInt(moves.size()));
+                game.makeMove(move);
+                played.add(move);
+                snapshots.add(Fen.read(game.toFen()));
+            }
+
+            int length = played.size();
+            Assertions.assertEquals(length, game.getHistoryLength());
+            for (int ply = length; ply > 0; ply--) {
+                Assertions.assertEquals(snapshots.get(ply), game);
+                Assertions.assertEquals(played.get(ply - 1), game.getMove(ply - 1));
+                Assertions.assertTrue(game.undoMove());
+            }
+            Assertions.assertEquals(snapshots.get(0), game);
+            Assertions.assertEquals(snapshots.get(0).getZobristKey(), game.getZobristKey());
+            Assertions.assertFalse(game.undoMove());
+
+            for (int ply = 1; ply <= length; ply++) {
+                Assertions.assertTrue(game.redoMove());
+                Assertions.assertEquals(snapshots.get(ply), game);
+            }
+            Assertions.assertFalse(game.redoMove());
+
+            int middle = length / 2;
+            Assertions.assertEquals(snapshots.get(middle).getBoard(), game.getBoardAt(middle));
+            Assertions.assertEquals(snapshots.get(length), game);
+            game.goToPly(middle);
+            Assertions.assertEquals(snapshots.get(middle), game);
+            Assertions.assertEquals(middle, game.getPly());
+            Assertions.assertEquals(length, game.getHistoryLength());
+        }
+    }
+
+    @Test
+    @DisplayName("A new move after undo drops the redo moves")
+    public void newMoveTruncates() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        game.makeMove(TestMoves.move(2, 5, 4, 5));
+        game.makeMove(TestMoves.move(7, 5, 5, 5));
+        game.undoMove();
+        game.makeMove(TestMoves.move(7, 4, 5, 4));
+        Assertions.assertEquals(2, game.getHistoryLength());
+        Assertions.assertEquals(TestMoves.move(7, 4, 5, 4), game.getMove(1));
+        Assertions.assertFalse(game.redoMove());
+    }
+
+    @Test
+    @DisplayName("History survives serialization and is cleared by resetHistory")
+    public void serialization() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        game.makeMove(TestMoves.move(2, 5, 4, 5));
+        game.makeMove(TestMoves.move(7, 4, 5, 4));
+        game.makeMove(TestMoves.move(4, 5, 5, 4));
+
+        Gson gson = new Gson();
+        ChessGame read = gson.fromJson(gson.toJson(game), ChessGame.class);
+        Assertions.assertEquals(game, read);
+        Assertions.assertEquals(3, read.getHistoryLength());
+        Assertions.assertTrue(read.undoMove());
+        Assertions.assertEquals(ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN),
+                read.getBoard().getPiece(ChessPosition.of(5, 4)));
+
+        read.setBoard(new ChessGame().getBoard());
+        Assertions.assertEquals(3, read.getHistoryLength());
+        Assertions.assertThrows(IllegalStateException.class, read::undoMove);
+        Assertions.assertThrows(IllegalStateException.class, read::redoMove);
+        Assertions.assertEquals(2, read.getPly());
+        Assertions.assertEquals(new ChessGame().getBoard(), read.getBoard());
+        read.resetHistory();
+        Assertions.assertEquals(0, read.getHistoryLength());
+        Assertions.assertFalse(read.undoMove());
+    }
+
+    @Test
+    @DisplayName("Games are written with only the moves their history holds")
+    public void trimmedJson() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        for (int round = 0; round < 5; round++) {
+            game.makeMove(TestMoves.move(1, 2, 3, 3));
+            game.makeMove(TestMoves.move(8, 2, 6, 3));
+            game.makeMove(TestMoves.move(3, 3, 1, 2));
+            game.makeMove(TestMoves.move(6, 3, 8, 2));
+        }
+        game.undoMove();
+
+        Gson gson = ChessJson.gson();
+        String json = gson.toJson(game);
+        Assertions.assertEquals(20, JsonParser.parseString(json).getAsJsonObject().getAsJsonArray("history").size());
+        ChessGame read = gson.fromJson(json, ChessGame.class);
+        Assertions.assertEquals(19, read.getPly());
+        Assertions.assertTrue(read.redoMove());
+        read.makeMove(TestMoves.move(2, 5, 4, 5));
+        Assertions.assertEquals(21, read.getHistoryLength());
+        Assertions.assertEquals(TestMoves.move(2, 5, 4, 5), read.getMove(20));
+    }
+}
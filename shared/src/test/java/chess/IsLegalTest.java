@@ -0,0 +1,59 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+public class IsLegalTest {
+
+    private static final ChessPiece.PieceType[] PROMOTIONS = {
+            null,
+            ChessPiece.PieceType.QUEEN,
+            ChessPiece.PieceType.ROOK,
+            ChessPiece.PieceType.BISHOP,
+            ChessPiece.PieceType.KNIGHT,
+            ChessPiece.PieceType.KING,
+            ChessPiece.PieceType.PAWN
+    };
+
+    @Test
+    @DisplayName("isLegal agrees with validMoves for every start, end and promotion")
+    public void agreesWithValidMoves() {
+        for (Perft.Position position : Perft.REFERENCE) {
+            ChessGame game = Fen.read(position.fen());
+            Set<ChessMove> legal = new HashSet<>();
+            for (int square = 0; square < 64; square++) {
+                ChessPiece piece = game.getBoard().getPiece(square);
+                if (piece != null && piece.getTeamColor() == game.getTeamTurn()) {
+                    legal.addAll(game.validMoves(Bitboards.position(square)));
+                }
+            }
+
+            for (int from = 0; from < 64; from++) {
+                for (int to = 0; to < 64; to++) {
+                    for (ChessPiece.PieceType promotion : PROMOTIONS) {
+                        ChessMove move = ChessMove.of(Bitboards.position(from), Bitboards.position(to), promotion);
+                        Assertions.assertEquals(legal.contains(move), game.isLegal(move), position.name() + " " + move);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("isLegal leaves the game alone")
+    public void leavesGameAlone() {
+        ChessGame game = Fen.read("2K2r2/4P3/8/8/8/8/8/3k4 w - - 0 1");
+        ChessGame copy = Fen.read("2K2r2/4P3/8/8/8/8/8/3k4 w - - 0 1");
+        Collection<ChessMove> before = game.validMoves(ChessPosition.of(7, 5));
+        game.isLegal(ChessMove.of(ChessPosition.of(7, 5), ChessPosition.of(8, 6), ChessPiece.PieceType.QUEEN));
+        game.isLegal(ChessMove.of(ChessPosition.of(8, 3), ChessPosition.of(8, 4), null));
+        Assertions.assertEquals(copy, game);
+        Assertions.assertEquals(new HashSet<>(before), new HashSet<>(game.validMoves(ChessPosition.of(7, 5))));
+        Assertions.assertFalse(game.isLegal(ChessMove.of(ChessPosition.of(8, 3), ChessPosition.of(9, 3), null)));
+    }
+}
@@ -0,0 +1,117 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class LegalMoveCacheTest {
+
+    @Test
+    @DisplayName("Cached moves match generated moves")
+    public void matchesGenerator() throws InvalidMoveException {
+        LegalMoveCache cache = new LegalMoveCache(64);
+        Random random = new Random(3);
+        for (Perft.Position position : Perft.REFERENCE) {
+            ChessGame game = Fen.read(position.fen());
+            ChessGame cached = Fen.read(position.fen());
+            cached.setMoveCache(cache);
+            for (int ply = 0; ply < 40; ply++) {
+                assertSameMoves(game, cached);
+                List<ChessMove> moves = new ArrayList<>(game.allValidMoves(game.getTeamTurn()));
+                if (moves.isEmpty()) {
+                    break;
+                }
+                ChessMove move = moves.get(random.nextInt(moves.size()));
+                game.makeMove(move);
+                cached.makeMove(move);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("A full slot is replaced")
+    public void replacesOnCollision() {
+        LegalMoveCache cache = new LegalMoveCache(1);
+        ChessGame first = new ChessGame();
+        ChessGame second = Fen.read("4k3/8/8/8/8/8/8/4K2R b - - 0 1");
+
+        LegalMoveCache.Entry entry = cache.get(first);
+        Assertions.assertSame(entry, cache.get(first));
+        Assertions.assertSame(entry, cache.peek(first.getZobristKey()));
+
+        cache.get(second);
+        Assertions.assertNull(cache.peek(first.getZobristKey()));
+        Assertions.assertEquals(1, cache.capacity());
+    }
+
+    @Test
+    @DisplayName("makeMove checks one move on a miss")
+    public void makeMoveDoesNotFill() throws InvalidMoveException {
+        LegalMoveCache cache = new LegalMoveCache(64);
+        ChessGame game = new ChessGame();
+        game.setMoveCache(cache);
+        long key = game.getZobristKey();
+        game.makeMove(new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null));
+        Assertions.assertNull(cache.peek(key));
+
+        Assertions.assertEquals(2, game.validMoves(new ChessPosition(7, 5)).size());
+        Assertions.assertNotNull(cache.peek(game.getZobristKey()));
+        Assertions.assertThrows(InvalidMoveException.class,
+                () -> game.makeMove(new ChessMove(new ChessPosition(7, 5), new ChessPosition(4, 5), null)));
+        game.makeMove(new ChessMove(new ChessPosition(7, 5), new ChessPosition(5, 5), null));
+    }
+
+    @Test
+    @DisplayName("Readers on many threads share one cache")
+    public void concurrentReaders() throws Exception {
+        LegalMoveCache cache = new LegalMoveCache(16);
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                futures.add(pool.submit(() -> {
+                    for (int i = 0; i < 200; i++) {
+                        for (Perft.Position position : Perft.REFERENCE) {
+                            ChessGame game = Fen.read(position.fen());
+                            int total = 0;
+                            for (int square = 0; square < 64; square++) {
+                                ChessPiece piece = game.getBoard().getPiece(square);
+                                if (piece != null && piece.getTeamColor() == game.getTeamTurn()) {
+                                    total += cache.validMoves(game, Bitboards.position(square)).size();
+                                }
+                            }
+                            Assertions.assertEquals(position.nodes()[0], total, position.name());
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static void assertSameMoves(ChessGame game, ChessGame cached) {
+        for (int square = 0; square < 64; square++) {
+            ChessPosition position = Bitboards.position(square);
+            var expected = game.validMoves(position);
+            var actual = cached.validMoves(position);
+            if (expected == null) {
+                Assertions.assertNull(actual);
+            } else {
+                Assertions.assertEquals(new HashSet<>(expected), new HashSet<>(actual));
+            }
+        }
+    }
+}
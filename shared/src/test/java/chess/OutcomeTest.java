@@ -0,0 +1,72 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+public class OutcomeTest {
+
+    @Test
+    @DisplayName("Outcome of known positions")
+    public void knownPositions() {
+        assertOutcome("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w - - 0 1", ChessGame.Outcome.NORMAL, 20);
+        assertOutcome("4k3/8/8/8/8/8/8/4K2R b - - 0 1", ChessGame.Outcome.NORMAL, 5);
+        assertOutcome("4k3/8/8/8/8/8/8/R3K3 b - - 0 1", ChessGame.Outcome.NORMAL, 5);
+        assertOutcome("4k3/8/8/8/8/8/8/4R1K1 b - - 0 1", ChessGame.Outcome.CHECK, 4);
+        assertOutcome("R3k3/8/4K3/8/8/8/8/8 b - - 0 1", ChessGame.Outcome.CHECKMATE, 0);
+        assertOutcome("k7/2Q5/1K6/8/8/8/8/8 b - - 0 1", ChessGame.Outcome.STALEMATE, 0);
+    }
+
+    @Test
+    @DisplayName("Outcome follows the game after moves and edits")
+    public void followsGame() throws InvalidMoveException {
+        // fool's mate
+        ChessGame game = new ChessGame();
+        Assertions.assertEquals(ChessGame.Outcome.NORMAL, game.getOutcome());
+        game.makeMove(TestMoves.move(2, 6, 3, 6));
+        game.makeMove(TestMoves.move(7, 5, 5, 5));
+        game.makeMove(TestMoves.move(2, 7, 4, 7));
+        Assertions.assertEquals(ChessGame.Outcome.NORMAL, game.getOutcome());
+        game.makeMove(TestMoves.move(8, 4, 4, 8));
+        Assertions.assertEquals(ChessGame.Outcome.CHECKMATE, game.getOutcome());
+        Assertions.assertTrue(game.isInCheckmate(ChessGame.TeamColor.WHITE));
+        Assertions.assertEquals(0, game.getLegalMoveCount());
+
+        // taking the queen off the board directly must not leave the old answer behind
+        game.getBoard().addPiece(ChessPosition.of(4, 8), null);
+        Assertions.assertEquals(ChessGame.Outcome.NORMAL, game.getOutcome());
+
+        game.setBoard(Fen.read("k7/2Q5/1K6/8/8/8/8/8 b - - 0 1").getBoard());
+        game.setTeamTurn(ChessGame.TeamColor.BLACK);
+        Assertions.assertEquals(ChessGame.Outcome.STALEMATE, game.getOutcome());
+    }
+
+    @Test
+    @DisplayName("Side-wide moves match the per-piece moves")
+    public void sideWideMoves() {
+        for (Perft.Position position : Perft.REFERENCE) {
+            ChessGame game = Fen.read(position.fen());
+            Set<ChessMove> perPiece = new HashSet<>();
+            for (int square = 0; square < 64; square++) {
+                ChessPiece piece = game.getBoard().getPiece(square);
+                if (piece != null && piece.getTeamColor() == game.getTeamTurn()) {
+                    perPiece.addAll(game.validMoves(Bitboards.position(square)));
+                }
+            }
+            Collection<ChessMove> sideWide = game.allValidMoves(game.getTeamTurn());
+            Assertions.assertEquals(perPiece, new HashSet<>(sideWide), position.name());
+            Assertions.assertEquals(position.nodes()[0], sideWide.size(), position.name());
+            Assertions.assertEquals(sideWide.size(), game.getLegalMoveCount(), position.name());
+        }
+    }
+
+    private static void assertOutcome(String fen, ChessGame.Outcome expected, int moves) {
+        ChessGame game = Fen.read(fen);
+        Assertions.assertEquals(expected, game.getOutcome(), fen);
+        Assertions.assertEquals(moves, game.getLegalMoveCount(), fen);
+    }
+}
@@ -0,0 +1,47 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ForkJoinPool;
+
+public class PerftTest {
+
+    // keeps the suite quick, the full depths are run by Perft.main
+    private static final long NODE_LIMIT = 250_000;
+
+    @Test
+    @DisplayName("Node counts match the reference positions")
+    public void referencePositions() {
+        for (Perft.Position position : Perft.REFERENCE) {
+            for (int depth = 1; depth <= position.maxDepth(); depth++) {
+                long expected = position.nodes()[depth - 1];
+                if (expected > NODE_LIMIT) {
+                    break;
+                }
+                Assertions.assertEquals(expected, Perft.perft(Fen.read(position.fen()), depth),
+                        position.name() + " depth " + depth);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Parallel perft counts the same nodes as one thread")
+    public void parallelMatchesSingleThread() {
+        ChessGame game = new ChessGame();
+        Assertions.assertEquals(197281, Perft.perftParallel(game, 4, ForkJoinPool.commonPool()));
+        try (ForkJoinPool pool = new ForkJoinPool(2)) {
+            Assertions.assertEquals(Perft.perft(game, 3), Perft.perftParallel(game, 3, pool));
+        }
+    }
+
+    @Test
+    @DisplayName("Divide adds up to the total and leaves the game alone")
+    public void divideAddsUpAndLeavesGameAlone() {
+        ChessGame game = new ChessGame();
+        long total = Perft.divide(game, 3).values().stream().mapToLong(Long::longValue).sum();
+        Assertions.assertEquals(8902, total);
+        Assertions.assertEquals(new ChessGame(), game);
+    }
+}
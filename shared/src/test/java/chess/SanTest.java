@@ -0,0 +1,34 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class SanTest {
+
+    @Test
+    @DisplayName("Reads pawn, piece, capture, disambiguated and promotion moves")
+    public void reads() {
+        ChessGame start = new ChessGame();
+        Assertions.assertEquals(ChessMove.of(ChessPosition.of(2, 5), ChessPosition.of(4, 5), null), San.read(start, "e4"));
+        Assertions.assertEquals(ChessMove.of(ChessPosition.of(1, 7), ChessPosition.of(3, 6), null), San.read(start, "Nf3!?"));
+
+        ChessGame game = Fen.read("4k3/1P6/8/3p4/4P3/8/8/R3K2R w - - 0 1");
+        Assertions.assertEquals(ChessMove.of(ChessPosition.of(4, 5), ChessPosition.of(5, 4), null), San.read(game, "exd5"));
+        Assertions.assertEquals(ChessMove.of(ChessPosition.of(1, 8), ChessPosition.of(1, 6), null), San.read(game, "Rhf1"));
+        Assertions.assertEquals(ChessMove.of(ChessPosition.of(7, 2), ChessPosition.of(8, 2), ChessPiece.PieceType.QUEEN),
+                San.read(game, "b8=Q+"));
+    }
+
+    @Test
+    @DisplayName("Rejects ambiguous, illegal and castling moves")
+    public void rejects() {
+        ChessGame game = Fen.read("4k3/8/8/8/8/8/4K3/R6R w - - 0 1");
+        Assertions.assertThrows(IllegalArgumentException.class, () -> San.read(game, "Rf1"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> San.read(game, "Rb2"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> San.read(game, "Qd1"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> San.read(game, "O-O"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> San.read(game, "e9"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> San.read(game, "x"));
+    }
+}
@@ -0,0 +1,13 @@
+package chess;
+
+public final class TestMoves {
+
+    private TestMoves() { }
+
+    /**
+     * @return the move between two squares given as row and column, without a promotion
+     */
+    public static ChessMove move(int fromRow, int fromCol, int toRow, int toCol) {
+        return ChessMove.of(ChessPosition.of(fromRow, fromCol), ChessPosition.of(toRow, toCol), null);
+    }
+}
@@ -0,0 +1,109 @@
+package chess.engine;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.Fen;
+import chess.InvalidMoveException;
+import chess.Perft;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+public class BatchAnalyzerTest {
+
+    @Test
+    @DisplayName("Batch results match one position at a time, in input order")
+    public void matchesSingle() throws InvalidMoveException {
+        List<String> fens = positions(500);
+        fens.add(137, "not a position");
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            List<BatchAnalyzer.Analysis> results = new BatchAnalyzer(pool, 0).analyzeFen(fens).toList();
+            Assertions.assertEquals(fens.size(), results.size());
+            for (int i = 0; i < fens.size(); i++) {
+                BatchAnalyzer.Analysis result = results.get(i);
+                Assertions.assertEquals(i, result.index());
+                if (i == 137) {
+                    Assertions.assertNotNull(result.error());
+                    continue;
+                }
+                ChessGame game = Fen.read(fens.get(i));
+                ChessGame.TeamColor color = game.getTeamTurn();
+                Assertions.assertNull(result.error());
+                Assertions.assertEquals(game.allValidMoves(color).size(), result.legalMoves(), fens.get(i));
+                Assertions.assertEquals(game.isInCheck(color), result.inCheck(), fens.get(i));
+                Assertions.assertEquals(game.isInCheckmate(color), result.isCheckmate(), fens.get(i));
+                if (result.legalMoves() > 0) {
+                    Assertions.assertEquals(Evaluation.evaluate(game.getBoard(), color), result.score());
+                }
+            }
+
+            List<byte[]> packed = new ArrayList<>();
+            for (String fen : fens.subList(0, 100)) {
+                packed.add(fen.equals("not a position") ? new byte[3] : Fen.read(fen).toBytes());
+            }
+            List<BatchAnalyzer.Analysis> fromBytes = new BatchAnalyzer(pool, 0).analyzePacked(packed).toList();
+            Assertions.assertEquals(results.subList(0, 100), fromBytes);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Searched results do not depend on the number of threads")
+    public void searchedRepeatable() throws InvalidMoveException {
+        List<String> fens = positions(80);
+        ForkJoinPool one = new ForkJoinPool(1);
+        ForkJoinPool three = new ForkJoinPool(3);
+        List<BatchAnalyzer.Analysis> single = new BatchAnalyzer(one, 2).analyzeFen(fens).toList();
+        List<BatchAnalyzer.Analysis> parallel = new BatchAnalyzer(three, 2).analyzeFen(fens).toList();
+        one.shutdown();
+        three.shutdown();
+        Assertions.assertEquals(single, parallel);
+        for (int i = 0; i < fens.size(); i++) {
+            ChessMove best = single.get(i).bestMove();
+            Assertions.assertEquals(single.get(i).legalMoves() > 0, best != null);
+            Assertions.assertTrue(best == null || Fen.read(fens.get(i)).isLegal(best));
+        }
+    }
+
+    @Test
+    @DisplayName("Any failure to decode a position is reported in its result")
+    public void decodeFailures() {
+        byte[] start = new ChessGame().toBytes();
+        List<byte[]> packed = Arrays.asList(start, null, new byte[3], start);
+        List<BatchAnalyzer.Analysis> results = new BatchAnalyzer(2).analyzePacked(packed).toList();
+        Assertions.assertEquals(4, results.size());
+        Assertions.assertNull(results.get(0).error());
+        Assertions.assertNotNull(results.get(1).error());
+        Assertions.assertNotNull(results.get(2).error());
+        Assertions.assertEquals(results.get(0).bestMove(), results.get(3).bestMove());
+        Assertions.assertEquals(20, results.get(3).legalMoves());
+    }
+
+    // random games from the perft positions, so there are checks, mates and endings among them
+    private static List<String> positions(int count) throws InvalidMoveException {
+        Random random = new Random(25);
+        List<String> fens = new ArrayList<>();
+        while (fens.size() < count) {
+            for (Perft.Position position : Perft.REFERENCE) {
+                ChessGame game = Fen.read(position.fen());
+                for (int ply = random.nextInt(40); ply > 0; ply--) {
+                    List<ChessMove> moves = new ArrayList<>(game.allValidMoves(game.getTeamTurn()));
+                    if (moves.isEmpty()) {
+                        break;
+                    }
+                    game.makeMove(moves.get(random.nextInt(moves.size())));
+                }
+                fens.add(game.toFen());
+            }
+        }
+        return fens.subList(0, count);
+    }
+}
@@ -0,0 +1,138 @@
+package chess.engine;
+
+import chess.ChessGame;
+import chess.ChessPosition;
+import chess.Fen;
+import chess.TestMoves;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class EngineTest {
+
+    @Test
+    @DisplayName("Finds mate in one and mate in two")
+    public void findsMates() {
+        Engine engine = new Engine(1);
+
+        SearchResult backRank = engine.search(Fen.read("6k1/5ppp/8/8/8/8/5PPP/R5K1 w - - 0 1"), SearchLimits.depth(4));
+        Assertions.assertEquals(TestMoves.move(1, 1, 8, 1), backRank.bestMove());
+        Assertions.assertEquals(1, backRank.mateIn());
+
+        SearchResult twoMoves = engine.search(
+                Fen.read("r2qkb1r/pp2nppp/3p4/2pNN1B1/2BnP3/3P4/PPP2PPP/R2bK2R w - - 1 1"), SearchLimits.depth(5));
+        Assertions.assertEquals(TestMoves.move(5, 4, 6, 6), twoMoves.bestMove());
+        Assertions.assertEquals(2, twoMoves.mateIn());
+        Assertions.assertEquals(3, twoMoves.principalVariation().size());
+    }
+
+    @Test
+    @DisplayName("Takes a hanging queen and avoids losing its own")
+    public void material() {
+        Engine engine = new Engine(1);
+        SearchResult take = engine.search(Fen.read("4k3/8/8/3q4/8/8/3R4/4K3 w - - 0 1"), SearchLimits.depth(3));
+        Assertions.assertEquals(TestMoves.move(2, 4, 5, 4), take.bestMove());
+        Assertions.assertTrue(take.score() > 300);
+
+        // the queen is attacked by a pawn and has to move
+        SearchResult save = engine.search(Fen.read("4k3/8/8/8/2p5/3Q4/8/4K3 w - - 0 1"), SearchLimits.depth(3));
+        Assertions.assertEquals(ChessPosition.of(3, 4), save.bestMove().getStartPosition());
+        Assertions.assertTrue(save.score() > 500);
+    }
+
+    @Test
+    @DisplayName("Node limited searches repeat exactly and leave the game alone")
+    public void repeatable() {
+        ChessGame game = Fen.read("r1bq1rk1/pp2bppp/2n1pn2/3p4/2PP4/2N1PN2/PP3PPP/R2QKB1R w - - 0 1");
+        ChessGame copy = Fen.read(game.toFen());
+        SearchResult first = new Engine(1).search(game, SearchLimits.nodes(20_000));
+        SearchResult second = new Engine(1).search(game, SearchLimits.nodes(20_000));
+        Assertions.assertEquals(first.bestMove(), second.bestMove());
+        Assertions.assertEquals(first.score(), second.score());
+        Assertions.assertEquals(first.depth(), second.depth());
+        Assertions.assertEquals(20_000, first.nodes());
+        Assertions.assertEquals(copy, game);
+        Assertions.assertTrue(first.nodesPerSecond() > 0);
+    }
+
+    @Test
+    @DisplayName("Helper threads share the work and still find the mate")
+    public void helperThreads() {
+        Engine engine = new Engine(4);
+        try {
+            ChessGame game = Fen.read("r2qkb1r/pp2nppp/3p4/2pNN1B1/2BnP3/3P4/PPP2PPP/R2bK2R w - - 1 1");
+            SearchResult result = engine.search(game, SearchLimits.depth(5).withThreads(4));
+            Assertions.assertEquals(TestMoves.move(5, 4, 6, 6), result.bestMove());
+            Assertions.assertEquals(2, result.mateIn());
+
+            SearchResult budget = engine.search(new ChessGame(), SearchLimits.nodes(200_000).withThreads(3));
+            Assertions.assertNotNull(budget.bestMove());
+            // every thread checks the shared count at least once per interval
+            Assertions.assertTrue(budget.nodes() < 200_000 + 3 * 1024, "nodes " + budget.nodes());
+        } finally {
+            engine.close();
+        }
+    }
+
+    @Test
+    @DisplayName("No legal move gives no best move")
+    public void noMoves() {
+        SearchResult mated = new Engine(1).search(Fen.read("R3k3/8/4K3/8/8/8/8/8 b - - 0 1"), SearchLimits.depth(3));
+        Assertions.assertNull(mated.bestMove());
+        Assertions.assertEquals(-Search.MATE, mated.score());
+
+        SearchResult stalemate = new Engine(1).search(Fen.read("k7/2Q5/1K6/8/8/8/8/8 b - - 0 1"), SearchLimits.depth(3));
+        Assertions.assertNull(stalemate.bestMove());
+        Assertions.assertEquals(0, stalemate.score());
+    }
+
+    @Test
+    @DisplayName("Transposition table keeps deeper entries and rejects other keys")
+    public void transpositionTable() {
+        TranspositionTable table = new TranspositionTable(1);
+        table.store(42, 1234, -250, 6, TranspositionTable.LOWER);
+        long data = table.probe(42);
+        Assertions.assertEquals(1234, TranspositionTable.move(data));
+        Assertions.assertEquals(-250, TranspositionTable.score(data));
+        Assertions.assertEquals(6, TranspositionTable.depth(data));
+        Assertions.assertEquals(TranspositionTable.LOWER, TranspositionTable.bound(data));
+
+        table.store(42, 99, 10, 2, TranspositionTable.EXACT);
+        Assertions.assertEquals(6, TranspositionTable.depth(table.probe(42)));
+        Assertions.assertEquals(0, table.probe(42 + table.entries()));
+    }
+
+    @Test
+    @DisplayName("Forgotten entries are invisible and replaced, even shallower")
+    public void forget() {
+        TranspositionTable table = new TranspositionTable(1);
+        table.store(42, 1234, -250, 6, TranspositionTable.LOWER);
+        table.forget();
+        Assertions.assertEquals(0, table.probe(42));
+        table.store(42, 99, 10, 2, TranspositionTable.EXACT);
+        Assertions.assertEquals(99, TranspositionTable.move(table.probe(42)));
+
+        // the generation wraps around after 256 searches, which must not bring old entries back
+        table.store(7, 55, 0, 3, TranspositionTable.EXACT);
+        for (int i = 0; i < 256; i++) {
+            table.forget();
+            Assertions.assertEquals(0, table.probe(7));
+        }
+        table.newSearch();
+        Assertions.assertEquals(0, table.probe(42));
+    }
+
+    @Test
+    @DisplayName("Plain new searches after a forget never bring older entries back")
+    public void forgetThenNewSearch() {
+        TranspositionTable table = new TranspositionTable(1);
+        table.newSearch();
+        table.store(42, 1234, -250, 6, TranspositionTable.LOWER);
+        table.forget();
+        table.store(7, 55, 0, 3, TranspositionTable.EXACT);
+        for (int i = 0; i < 256; i++) {
+            table.newSearch();
+            Assertions.assertEquals(0, table.probe(42));
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package chess.engine;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.Fen;
+import chess.MoveList;
+import chess.Perft;
+import chess.pieces.LegalMoves;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+public class EvaluatorTest {
+
+    @Test
+    @DisplayName("Kept score matches a full recount through random games")
+    public void matchesRecount() {
+        Random random = new Random(21);
+        Evaluator evaluator = new Evaluator();
+        for (Perft.Position position : Perft.REFERENCE) {
+            for (int game = 0; game < 20; game++) {
+                ChessGame start = Fen.read(position.fen());
+                ChessBoard board = new ChessBoard(start.getBoard());
+                ChessGame.TeamColor color = start.getTeamTurn();
+                evaluator.reset(board);
+                int played = 0;
+                MoveList moves = new MoveList();
+                for (; played < 200; played++) {
+                    moves.clear();
+                    LegalMoves.generate(board, color, moves);
+                    if (moves.isEmpty()) {
+                        break;
+                    }
+                    evaluator.makeMove(moves.get(random.nextInt(moves.size())));
+                    color = color == ChessGame.TeamColor.WHITE ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+                    evaluator.verify();
+                    Assertions.assertEquals(Evaluation.evaluate(board, color), evaluator.evaluate(color));
+                }
+                for (; played > 0; played--) {
+                    evaluator.unmakeMove();
+                    evaluator.verify();
+                }
+                Assertions.assertEquals(start.getBoard(), board);
+                Assertions.assertThrows(IllegalStateException.class, evaluator::unmakeMove);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Mirrored positions score the same for the side to move")
+    public void symmetric() {
+        Assertions.assertEquals(0, Evaluation.evaluate(new ChessGame().getBoard(), ChessGame.TeamColor.WHITE));
+        String[][] pairs = {
+                {"r1bqkbnr/pppp1ppp/2n5/4p3/4P3/5N2/PPPP1PPP/RNBQKB1R w", "rnbqkb1r/pppp1ppp/5n2/4p3/4P3/2N5/PPPP1PPP/R1BQKBNR b"},
+                {"8/5k2/8/3P4/8/8/2K5/8 w", "8/2k5/8/8/3p4/8/5K2/8 b"},
+        };
+        for (String[] pair : pairs) {
+            ChessGame white = Fen.read(pair[0]);
+            ChessGame black = Fen.read(pair[1]);
+            Assertions.assertEquals(Evaluation.evaluate(white.getBoard(), white.getTeamTurn()),
+                    Evaluation.evaluate(black.getBoard(), black.getTeamTurn()));
+        }
+    }
+
+    @Test
+    @DisplayName("Kings move to the centre in the endgame and stay home in the middlegame")
+    public void phase() {
+        ChessBoard endgame = Fen.readBoard("8/8/8/8/8/8/P7/4K2k");
+        ChessBoard centralised = Fen.readBoard("8/8/8/8/4K3/8/P7/7k");
+        Assertions.assertTrue(Evaluation.evaluate(centralised, ChessGame.TeamColor.WHITE)
+                > Evaluation.evaluate(endgame, ChessGame.TeamColor.WHITE));
+
+        ChessBoard home = Fen.readBoard("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR");
+        ChessBoard wandered = Fen.readBoard("rnbqkbnr/pppppppp/8/8/4K3/8/PPPPPPPP/RNBQ1BNR");
+        Assertions.assertTrue(Evaluation.evaluate(home, ChessGame.TeamColor.WHITE)
+                > Evaluation.evaluate(wandered, ChessGame.TeamColor.WHITE));
+    }
+}
@@ -0,0 +1,70 @@
+package chess.engine;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.Fen;
+import chess.InvalidMoveException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+
+public class MateSolverTest {
+
+    @Test
+    @DisplayName("Finds the shortest mate and a line that ends in checkmate")
+    public void findsMates() throws InvalidMoveException {
+        MateSolver solver = new MateSolver(4);
+        String[] fens = {
+                "6k1/5ppp/8/8/8/8/5PPP/R5K1 w - - 0 1",
+                "kbK5/pp6/1P6/8/8/8/8/R7 w - - 0 1",
+                "r2qkb1r/pp2nppp/3p4/2pNN1B1/2BnP3/3P4/PPP2PPP/R2bK2R w - - 1 1",
+                "r5rk/5p1p/5R2/4B3/8/8/7P/7K w - - 0 1",
+                "2r3k1/p4p2/3Rp2p/1p2P1pK/8/1P4P1/P3Q2P/1q6 b - - 0 1",
+        };
+        int[] moves = {1, 2, 2, 3, 3};
+        for (int i = 0; i < fens.length; i++) {
+            ChessGame game = Fen.read(fens[i]);
+            ChessGame.TeamColor attacker = game.getTeamTurn();
+            MateSolver.Result result = solver.solve(game, 4);
+            Assertions.assertEquals(MateSolver.Status.MATE, result.status(), fens[i]);
+            Assertions.assertEquals(moves[i], result.moves(), fens[i]);
+            Assertions.assertEquals(2 * moves[i] - 1, result.line().size(), fens[i]);
+            Assertions.assertEquals(fens[i], game.toFen());
+            for (ChessMove move : result.line()) {
+                game.makeMove(move);
+            }
+            Assertions.assertTrue(game.isInCheckmate(attacker == ChessGame.TeamColor.WHITE
+                    ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE), fens[i]);
+        }
+    }
+
+    @Test
+    @DisplayName("Proves there is no mate within the moves asked for")
+    public void noMate() {
+        MateSolver solver = new MateSolver(4);
+        Assertions.assertEquals(MateSolver.Status.NO_MATE, solver.solve(Fen.read("8/8/8/8/8/4k3/8/R3K3 w - - 0 1"), 3).status());
+        // mate in three is not mate in two
+        Assertions.assertEquals(MateSolver.Status.NO_MATE, solver.solve(Fen.read("r5rk/5p1p/5R2/4B3/8/8/7P/7K w - - 0 1"), 2).status());
+        // stalemate is not mate
+        Assertions.assertEquals(MateSolver.Status.NO_MATE, solver.solve(Fen.read("k7/8/1Q6/8/8/8/8/7K b - - 0 1"), 1).status());
+    }
+
+    @Test
+    @DisplayName("Gives up at the node limit or when cancelled")
+    public void stops() {
+        ChessGame game = Fen.read("r1bq1rk1/pp2bppp/2n1pn2/3p4/2PP4/2N1PN2/PP3PPP/R2QKB1R w - - 0 1");
+        MateSolver.Result limited = new MateSolver(1).solve(game, 10, 5_000);
+        Assertions.assertEquals(MateSolver.Status.UNKNOWN, limited.status());
+        Assertions.assertTrue(limited.nodes() <= 5_000);
+
+        MateSolver solver = new MateSolver(1);
+        CompletableFuture<MateSolver.Result> running = CompletableFuture.supplyAsync(() -> solver.solve(game, 10));
+        while (!running.isDone()) {
+            solver.cancel();
+            Thread.onSpinWait();
+        }
+        Assertions.assertEquals(MateSolver.Status.UNKNOWN, running.join().status());
+    }
+}
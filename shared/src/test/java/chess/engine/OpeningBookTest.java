@@ -0,0 +1,103 @@
+package chess.engine;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import chess.InvalidMoveException;
+import chess.San;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+
+public class OpeningBookTest {
+
+    private static final String GAMES = """
+            [Event "One"]
+            [White "A"]
+            [Black "B"]
+
+            1. e4 e5 2. Nf3 {the usual} Nc6 (2... d6 3. d4) 3. Bb5 a6 1-0
+
+            [Event "Two"]
+
+            1.e4 c5 2.Nf3 $1 d6 3.O-O Nf6 0-1
+
+            [Event "Three"]
+            1. d4 d5; a comment to the end of the line
+            2. c4 1/2-1/2
+
+            [Event "Four"]
+            [SetUp "1"]
+            [FEN "4k3/8/8/8/8/8/4P3/4K3 b - - 0 1"]
+
+            1... Kd7 2. e4 *
+            """;
+
+    @Test
+    @DisplayName("Builds a book from PGN and looks moves up by position")
+    public void buildAndRead(@TempDir Path folder) throws IOException, InvalidMoveException {
+        Files.writeString(folder.resolve("games.pgn"), GAMES);
+        Files.writeString(folder.resolve("notes.txt"), "1. a4 *");
+        OpeningBookBuilder builder = new OpeningBookBuilder(4);
+        builder.addFolder(folder);
+        Assertions.assertEquals(4, builder.games());
+        Path file = folder.resolve("book.bin");
+        builder.write(file);
+
+        OpeningBook book = OpeningBook.open(file);
+        Assertions.assertEquals(builder.records(), book.size());
+        Assertions.assertEquals(book.size() * (long) OpeningBook.RECORD_SIZE, Files.size(file));
+
+        ChessGame game = new ChessGame();
+        List<OpeningBook.Entry> first = book.moves(game);
+        Assertions.assertEquals(2, first.size());
+        Assertions.assertEquals(new OpeningBook.Entry(San.read(game, "e4"), 2), first.get(0));
+        Assertions.assertEquals(new OpeningBook.Entry(San.read(game, "d4"), 1), first.get(1));
+        Assertions.assertEquals(San.read(game, "e4"), book.best(game));
+        Assertions.assertTrue(List.of(San.read(game, "e4"), San.read(game, "d4")).contains(book.pick(game, new Random(1))));
+
+        // the variation and everything past the ply limit are left out
+        play(game, "e4", "e5", "Nf3");
+        Assertions.assertEquals(List.of(new OpeningBook.Entry(San.read(game, "Nc6"), 1)), book.moves(game));
+        play(game, "Nc6");
+        Assertions.assertNull(book.best(game));
+
+        ChessGame endgame = ChessGame.fromFen("4k3/8/8/8/8/8/4P3/4K3 b - - 0 1");
+        Assertions.assertEquals(ChessMove.of(ChessPosition.of(8, 5), ChessPosition.of(7, 4), null), book.best(endgame));
+    }
+
+    @Test
+    @DisplayName("The engine plays book moves without searching")
+    public void engineUsesBook(@TempDir Path folder) throws IOException, InvalidMoveException {
+        OpeningBookBuilder builder = new OpeningBookBuilder();
+        builder.addPgn(new StringReader(GAMES));
+        Path file = folder.resolve("book.bin");
+        builder.write(file);
+
+        Engine engine = new Engine(1);
+        engine.setBook(OpeningBook.open(file));
+        ChessGame game = new ChessGame();
+        SearchResult result = engine.search(game, SearchLimits.depth(6));
+        Assertions.assertEquals(San.read(game, "e4"), result.bestMove());
+        Assertions.assertEquals(0, result.nodes());
+
+        // the second game stops at castling, which this game does not have
+        play(game, "e4", "c5", "Nf3", "d6");
+        SearchResult searched = engine.search(game, SearchLimits.depth(2));
+        Assertions.assertTrue(searched.nodes() > 0);
+    }
+
+    private static void play(ChessGame game, String... moves) throws InvalidMoveException {
+        for (String san : moves) {
+            game.makeMove(San.read(game, san));
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package chess.engine;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessPosition;
+import chess.Fen;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class TablebaseTest {
+
+    @TempDir
+    static Path folder;
+
+    private static Tablebase tablebase;
+
+    @BeforeAll
+    public static void generate() throws IOException {
+        TablebaseGenerator.write(folder);
+        tablebase = Tablebase.open(folder);
+    }
+
+    @Test
+    @DisplayName("Longest mates match the known values")
+    public void longestMates() throws IOException {
+        int[] expected = {10, 16, 28};
+        for (Tablebase.Material material : Tablebase.Material.values()) {
+            Assertions.assertTrue(tablebase.has(material));
+            byte[] table = Files.readAllBytes(folder.resolve(material.fileName()));
+            Assertions.assertEquals(Tablebase.SIZE, table.length);
+            int longest = 0;
+            for (byte entry : table) {
+                if ((entry & 3) == Tablebase.WIN) {
+                    longest = Math.max(longest, (entry & 0xFF) >>> 2);
+                }
+            }
+            Assertions.assertEquals(expected[material.ordinal()], longest, material.name());
+        }
+    }
+
+    @Test
+    @DisplayName("Probes give wins, losses and draws for either colour")
+    public void probes() {
+        assertProbe("k7/8/1K6/8/8/8/7Q/8 w", Tablebase.Wdl.WIN, 1);
+        assertProbe("k7/1Q6/1K6/8/8/8/8/8 b", Tablebase.Wdl.LOSS, 0);
+        assertProbe("8/7q/8/8/8/1k6/8/K7 b", Tablebase.Wdl.WIN, 1);
+        assertProbe("k7/1Q6/8/8/8/8/8/K7 b", Tablebase.Wdl.DRAW, 0);
+
+        // a rook pawn with the defending king in the corner, and a stalemate in front of the pawn
+        assertProbe("k7/8/8/8/8/8/P7/K7 w", Tablebase.Wdl.DRAW, 0);
+        assertProbe("4k3/4P3/4K3/8/8/8/8/8 b", Tablebase.Wdl.DRAW, 0);
+        assertProbe("8/8/8/8/8/8/4P3/k3K3 w", Tablebase.Wdl.WIN, -1);
+        assertProbe("k3K3/4p3/8/8/8/8/8/8 b", Tablebase.Wdl.WIN, -1);
+
+        assertProbe("8/8/3k4/8/8/3K4/8/8 w", Tablebase.Wdl.DRAW, 0);
+        assertProbe("8/8/3k4/8/8/3KN3/8/8 w", Tablebase.Wdl.DRAW, 0);
+        Assertions.assertNull(tablebase.probe(Fen.readBoard("8/8/3k4/8/8/3KQ3/3P4/8"), ChessGame.TeamColor.WHITE));
+    }
+
+    @Test
+    @DisplayName("The engine answers table positions and scores them inside the search")
+    public void engine() {
+        Engine engine = new Engine(1);
+        engine.setTablebase(tablebase);
+        SearchResult mate = engine.search(Fen.read("k7/8/1K6/8/8/8/7Q/8 w - - 0 1"), SearchLimits.depth(1));
+        Assertions.assertEquals(8, mate.bestMove().getEndPosition().getRow());
+        Assertions.assertEquals(1, mate.mateIn());
+        Assertions.assertEquals(0, mate.nodes());
+
+        // taking the pawn leaves a won king and queen ending far beyond the searched depth
+        SearchResult won = engine.search(Fen.read("8/8/3k4/8/8/8/6p1/K6Q w - - 0 1"), SearchLimits.depth(2));
+        Assertions.assertEquals(ChessPosition.of(2, 7), won.bestMove().getEndPosition());
+        Assertions.assertTrue(won.isMate());
+        Assertions.assertTrue(won.mateIn() > 1);
+    }
+
+    private static void assertProbe(String fen, Tablebase.Wdl wdl, int movesToMate) {
+        ChessGame game = Fen.read(fen);
+        ChessBoard board = game.getBoard();
+        Tablebase.Result result = tablebase.probe(board, game.getTeamTurn());
+        Assertions.assertNotNull(result, fen);
+        Assertions.assertEquals(wdl, result.wdl(), fen);
+        if (movesToMate >= 0) {
+            Assertions.assertEquals(movesToMate, result.movesToMate(), fen);
+        }
+    }
+}